@@ -0,0 +1,143 @@
+package com.ironhack.taskithub.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * ApiLoadBenchmark
+ *
+ * Closed-loop load against a running instance: load.clients clients, each on
+ * a virtual thread, send GET requests to the load.paths in turn for
+ * load.duration and report throughput, latency percentiles and the status
+ * codes seen. Run it once against the default mode and once against
+ * --spring.profiles.active=virtual-threads with the same database; with more
+ * clients than Tomcat's 200 threads the platform-thread mode queues in Tomcat,
+ * the virtual-thread mode in the connection pool, and 503s show where the
+ * guard rails turned requests away.
+ *
+ * System properties: load.url (http://localhost:8080), load.username and
+ * load.password (admin), load.clients (400), load.duration (30s),
+ * load.warmup (10s), load.paths (comma separated, /tasks?limit=20 by default).
+ */
+public class ApiLoadBenchmark {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private record Result(long[] latencies, int count, Map<Integer, Integer> statuses) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("load.url", "http://localhost:8080");
+        int clients = Integer.getInteger("load.clients", 400);
+        Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "30s"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "10s"));
+        List<URI> uris = Arrays.stream(System.getProperty("load.paths", "/tasks?limit=20").split(","))
+                .map(path -> URI.create(url + path.trim())).toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(client, url, System.getProperty("load.username", "admin"),
+                System.getProperty("load.password", "admin"));
+
+        System.out.printf("warming up for %s with %d clients%n", warmup, clients);
+        run(client, token, uris, clients, warmup);
+        System.out.printf("measuring for %s%n", duration);
+        long started = System.nanoTime();
+        List<Result> results = run(client, token, uris, clients, duration);
+        report(results, System.nanoTime() - started);
+    }
+
+    private static String login(HttpClient client, String url, String username, String password) throws Exception {
+        String body = OBJECT_MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/api/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with " + response.statusCode() + ": " + response.body());
+        }
+        return OBJECT_MAPPER.readTree(response.body()).get("access_token").asText();
+    }
+
+    private static List<Result> run(HttpClient client, String token, List<URI> uris, int clients, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int offset = i;
+                futures.add(executor.submit(() -> client(client, token, uris, offset, deadline)));
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static Result client(HttpClient client, String token, List<URI> uris, int offset, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(uris.get((offset + count) % uris.size()))
+                    .header("Authorization", token)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            long started = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                // connection refused, reset or timed out
+                status = 0;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - started;
+            statuses.merge(status, 1, Integer::sum);
+        }
+        return new Result(latencies, count, statuses);
+    }
+
+    private static void report(List<Result> results, long elapsedNanos) {
+        int total = results.stream().mapToInt(Result::count).sum();
+        long[] latencies = new long[total];
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        int position = 0;
+        for (Result result : results) {
+            System.arraycopy(result.latencies(), 0, latencies, position, result.count());
+            position += result.count();
+            result.statuses().forEach((status, count) -> statuses.merge(status, count, Integer::sum));
+        }
+        Arrays.sort(latencies);
+        System.out.printf("requests: %d, throughput: %.1f/s%n", total, total * 1e9 / elapsedNanos);
+        System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0));
+        System.out.printf("statuses (0 = no response): %s%n", statuses);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
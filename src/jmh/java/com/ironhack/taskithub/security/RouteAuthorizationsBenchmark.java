@@ -0,0 +1,111 @@
+package com.ironhack.taskithub.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import com.ironhack.taskithub.enums.Role;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * RouteAuthorizationsBenchmark
+ *
+ * Checks a mix of API requests against the route table of SecurityConfig
+ * and against the same rules as an ordered request matcher chain, the way
+ * they were declared before. The chain uses AntPathRequestMatcher, which
+ * needs no MVC context; the MVC matchers Spring Security picks when MVC is
+ * present do more work per matcher, so the chain's numbers are a lower bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteAuthorizationsBenchmark {
+    private final Authentication user = new UsernamePasswordAuthenticationToken("user", null,
+            AuthorityUtils.createAuthorityList("USER"));
+
+    private RouteAuthorizations routeAuthorizations;
+    private AuthorizationManager<HttpServletRequest> matcherChain;
+    private List<HttpServletRequest> requests;
+
+    @Setup
+    public void setUp() {
+        routeAuthorizations = SecurityConfig.routeAuthorizations();
+
+        RequestMatcherDelegatingAuthorizationManager.Builder chain = RequestMatcherDelegatingAuthorizationManager
+                .builder();
+        for (RouteAuthorizations.Rule rule : routeAuthorizations.getRules()) {
+            String method = rule.method() == null ? null : rule.method().name();
+            chain.add(new AntPathRequestMatcher(rule.pattern(), method),
+                    AuthorityAuthorizationManager.hasAnyAuthority(
+                            rule.roles().stream().map(Role::name).toArray(String[]::new)));
+        }
+        matcherChain = chain
+                .add(AnyRequestMatcher.INSTANCE, (authentication, context) -> new AuthorizationDecision(true))
+                .build();
+
+        // the most frequent requests first, the last one matches no rule at all
+        requests = List.of(
+                request("GET", "/tasks/42"),
+                request("PUT", "/tasks/42"),
+                request("GET", "/tasks/sync"),
+                request("GET", "/users/7"),
+                request("PATCH", "/tasks/bulk"),
+                request("GET", "/departments/3/task-ids"),
+                request("DELETE", "/tasks/42"),
+                request("GET", "/actuator/metrics/http.server.requests"),
+                request("GET", "/actuator/health"));
+    }
+
+    @Benchmark
+    public void routeTable(Blackhole blackhole) {
+        for (HttpServletRequest request : requests) {
+            blackhole.consume(routeAuthorizations.check(() -> user, new RequestAuthorizationContext(request)));
+        }
+    }
+
+    @Benchmark
+    public void matcherChain(Blackhole blackhole) {
+        for (HttpServletRequest request : requests) {
+            blackhole.consume(matcherChain.check(() -> user, request));
+        }
+    }
+
+    private static HttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RouteAuthorizationsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -4,16 +4,20 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.ironhack.taskithub.datasource.PinnedCarrierCheck;
 import com.ironhack.taskithub.dto.UserDTO;
 import com.ironhack.taskithub.service.UserService;
 
 @SpringBootApplication
+@EnableScheduling
 public class TaskithubApplication {
 
     public static void main(String[] args) {
+        PinnedCarrierCheck.reserveCarriers(args);
         SpringApplication.run(TaskithubApplication.class, args);
     }
 
@@ -0,0 +1,32 @@
+package com.ironhack.taskithub.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ConnectionUnavailableExceptionHandler
+ *
+ * No pooled connection became free within
+ * spring.datasource.hikari.connection-timeout (or the database is down).
+ * Reported as 503 with Retry-After so clients back off instead of retrying
+ * a 500 right away.
+ */
+@RestControllerAdvice
+@Slf4j
+public class ConnectionUnavailableExceptionHandler {
+
+    @ExceptionHandler({ CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class })
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Database busy, retry shortly")
+    public void handleConnectionUnavailable(RuntimeException e, HttpServletResponse response) {
+        log.warn("No database connection: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+    }
+}
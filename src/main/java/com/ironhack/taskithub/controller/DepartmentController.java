@@ -4,11 +4,14 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.ironhack.taskithub.dto.CursorPageDTO;
 import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
 import com.ironhack.taskithub.dto.DepartmentSummaryDTO;
 
 import com.ironhack.taskithub.model.Department;
@@ -38,7 +41,8 @@ public class DepartmentController {
     public ResponseEntity<DepartmentSummaryDTO> getDepartmentById(@PathVariable Long id) {
         Department department = departmentService.getDepartmentById(id);
         if (department != null) {
-            return ResponseEntity.ok(departmentService.toDepartmentSummaryDTO(department));
+            return ResponseEntity.ok().eTag(EntityTags.of(department.getVersion()))
+                    .body(departmentService.toDepartmentSummaryDTO(department));
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
@@ -53,12 +57,42 @@ public class DepartmentController {
         return ResponseEntity.ok(departmentsDTOs);
     }
 
+    @GetMapping(value = "/{id}", params = "view=overview")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<DepartmentOverviewDTO> getDepartmentOverview(@PathVariable Long id) {
+        return ResponseEntity.ok(departmentService.getDepartmentOverview(id));
+    }
+
+    @GetMapping(params = "view=overview")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<DepartmentOverviewDTO>> getDepartmentOverviews() {
+        return ResponseEntity.ok(departmentService.getDepartmentOverviews());
+    }
+
+    @GetMapping("/{id}/task-ids")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<Long>> getDepartmentTaskIds(@PathVariable Long id,
+            @RequestParam(defaultValue = "100") int limit, @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(departmentService.getDepartmentTaskIds(id, cursor, limit));
+    }
+
+    @GetMapping("/{id}/user-ids")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<Long>> getDepartmentUserIds(@PathVariable Long id,
+            @RequestParam(defaultValue = "100") int limit, @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(departmentService.getDepartmentUserIds(id, cursor, limit));
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<DepartmentSummaryDTO> updateDepartment(@PathVariable Long id, @RequestBody DepartmentDTO departmentDTO) {
-        Department updatedDepartment = departmentService.updateDepartmentFromDTO(id, departmentDTO);
+    public ResponseEntity<DepartmentSummaryDTO> updateDepartment(@PathVariable Long id,
+            @RequestBody DepartmentDTO departmentDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Department updatedDepartment = departmentService.updateDepartmentFromDTO(id, departmentDTO,
+                EntityTags.version(ifMatch));
         if (updatedDepartment != null) {
-            return ResponseEntity.ok(departmentService.toDepartmentSummaryDTO(updatedDepartment));
+            return ResponseEntity.ok().eTag(EntityTags.of(updatedDepartment.getVersion()))
+                    .body(departmentService.toDepartmentSummaryDTO(updatedDepartment));
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
@@ -0,0 +1,62 @@
+package com.ironhack.taskithub.controller;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * EntityTags
+ *
+ * Single resources are tagged with their entity version, so the ETag of a GET
+ * is exactly what a later PUT has to send back in If-Match. Listings are
+ * tagged with a change counter (service.ListingVersions) and answered with
+ * 304 while the client's copy is current.
+ */
+final class EntityTags {
+    // clients may keep the listing but have to check it is still current each time
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private EntityTags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 304 without building the body if If-None-Match carries the current tag,
+     * the body with its tag otherwise.
+     */
+    static <T> ResponseEntity<T> conditional(WebRequest request, String tag, Supplier<T> body) {
+        if (request.checkNotModified(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(tag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    /**
+     * The version an If-Match header asks for, or null when the header is
+     * absent or "*" (write unconditionally).
+     *
+     * @throws ResponseStatusException PRECONDITION_FAILED for anything that is
+     *         not a single strong tag issued by this API: it cannot match
+     */
+    static Long version(String ifMatch) throws ResponseStatusException {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the current version");
+    }
+}
@@ -0,0 +1,27 @@
+package com.ironhack.taskithub.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OptimisticLockingExceptionHandler
+ *
+ * A concurrent update committed between our read and our write: the version
+ * condition of the UPDATE matched no row. Reported like a failed If-Match so
+ * the client re-reads and retries instead of getting a 500.
+ */
+@RestControllerAdvice
+@Slf4j
+public class OptimisticLockingExceptionHandler {
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Modified concurrently, reload and retry")
+    public void handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        log.info("Concurrent update of {} {}", e.getPersistentClassName(), e.getIdentifier());
+    }
+}
@@ -1,17 +1,33 @@
 package com.ironhack.taskithub.controller;
 
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ironhack.taskithub.dto.CursorPageDTO;
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
+import com.ironhack.taskithub.dto.TaskBulkUpdateResultDTO;
 import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskImportResultDTO;
+import com.ironhack.taskithub.dto.TaskReindexResultDTO;
+import com.ironhack.taskithub.dto.TaskSearchDTO;
 import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.dto.TaskSyncDTO;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.enums.TaskSortKey;
 import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.service.TaskImportService;
+import com.ironhack.taskithub.service.TaskEventHub;
 import com.ironhack.taskithub.service.TaskService;
+import com.ironhack.taskithub.service.TaskSyncService;
 
 /**
  * TaskController
@@ -22,6 +38,15 @@ public class TaskController {
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private TaskImportService taskImportService;
+
+    @Autowired
+    private TaskSyncService taskSyncService;
+
+    @Autowired
+    private TaskEventHub taskEventHub;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<TaskSummaryDTO> createTask(@RequestBody TaskDTO taskDTO) {
@@ -29,47 +54,129 @@ public class TaskController {
         return ResponseEntity.ok(taskService.toTaskSummaryDTO(createdTask));
     }
 
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<TaskImportResultDTO> importTasks(InputStream body) {
+        return ResponseEntity.ok(taskImportService.importTasks(body));
+    }
+
     @GetMapping("/department/{departmentId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<List<TaskSummaryDTO>> getTasksByDepartment(@PathVariable Long departmentId) {
-        List<Task> tasks = taskService.getTasksByDepartment(departmentId);
-        return ResponseEntity.ok(tasks.stream().map(taskService::toTaskSummaryDTO).collect(Collectors.toList()));
+    public ResponseEntity<List<TaskSummaryDTO>> getTasksByDepartment(@PathVariable Long departmentId,
+            WebRequest request) {
+        return EntityTags.conditional(request, taskService.getDepartmentTasksTag(departmentId),
+                () -> taskService.getTaskSummariesByDepartment(departmentId));
+    }
+
+    @GetMapping(value = "/department/{departmentId}", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<TaskSummaryDTO>> getTasksByDepartmentPage(@PathVariable Long departmentId,
+            @RequestParam int limit, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "UPDATED_AT") TaskSortKey sort) {
+        return ResponseEntity.ok(taskService.getTasksByDepartmentPage(departmentId, cursor, limit, sort));
     }
 
     @GetMapping("/created-by/{userId}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<List<TaskSummaryDTO>> getTasksCreatedByUser(@PathVariable Long userId) {
-        List<Task> tasks = taskService.getTasksCreatedByUser(userId);
-        return ResponseEntity.ok(tasks.stream().map(taskService::toTaskSummaryDTO).collect(Collectors.toList()));
+        return ResponseEntity.ok(taskService.getTaskSummariesCreatedByUser(userId));
+    }
+
+    @GetMapping(value = "/created-by/{userId}", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<TaskSummaryDTO>> getTasksCreatedByUserPage(@PathVariable Long userId,
+            @RequestParam int limit, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "UPDATED_AT") TaskSortKey sort) {
+        return ResponseEntity.ok(taskService.getTasksCreatedByUserPage(userId, cursor, limit, sort));
     }
 
     @GetMapping("/assigned-to/{userId}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<List<TaskSummaryDTO>> getTasksAssignedToUser(@PathVariable Long userId) {
-        List<Task> tasks = taskService.getTasksAssignedToUser(userId);
-        return ResponseEntity.ok(tasks.stream().map(taskService::toTaskSummaryDTO).collect(Collectors.toList()));
+    public ResponseEntity<List<TaskSummaryDTO>> getTasksAssignedToUser(@PathVariable Long userId,
+            WebRequest request) {
+        return EntityTags.conditional(request, taskService.getAssignedTasksTag(userId),
+                () -> taskService.getTaskSummariesAssignedToUser(userId));
+    }
+
+    @GetMapping(value = "/assigned-to/{userId}", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<TaskSummaryDTO>> getTasksAssignedToUserPage(@PathVariable Long userId,
+            @RequestParam int limit, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "UPDATED_AT") TaskSortKey sort) {
+        return ResponseEntity.ok(taskService.getTasksAssignedToUserPage(userId, cursor, limit, sort));
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<TaskSummaryDTO>> searchTasks(TaskSearchDTO search,
+            @RequestParam(defaultValue = "50") int limit, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "UPDATED_AT") TaskSortKey sort) {
+        return ResponseEntity.ok(taskService.searchTasks(search, cursor, limit, sort));
+    }
+
+    @GetMapping(value = "/search", params = "q")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<TaskSummaryDTO>> searchTaskText(@RequestParam String q,
+            @RequestParam(required = false) Long departmentId, @RequestParam(required = false) List<Status> status,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(taskService.searchTaskText(q, departmentId, status, limit));
+    }
+
+    @GetMapping("/sync")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<TaskSyncDTO> syncTasks(@RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long assigneeId, @RequestParam(required = false) String watermark,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(taskSyncService.sync(departmentId, assigneeId, watermark, limit));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(@RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long assigneeId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return taskEventHub.subscribe(departmentId, assigneeId, lastEventId);
+    }
+
+    @PostMapping("/search/reindex")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<TaskReindexResultDTO> rebuildSearchIndex() {
+        return ResponseEntity.ok(new TaskReindexResultDTO(taskService.rebuildSearchIndex()));
     }
 
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<TaskSummaryDTO> getTaskById(@PathVariable Long id) {
-        Task task = taskService.getTaskById(id);
-        return ResponseEntity.ok(taskService.toTaskSummaryDTO(task));
+        TaskSummaryDTO task = taskService.getTaskSummaryById(id);
+        return ResponseEntity.ok().eTag(EntityTags.of(task.getVersion())).body(task);
     }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<List<TaskDTO>> getAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
-        List<TaskDTO> taskDTOs = tasks.stream().map(taskService::toTaskDTO).collect(Collectors.toList());
-        return ResponseEntity.ok(taskDTOs);
+        return ResponseEntity.ok(taskService.getAllTaskDTOs());
+    }
+
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDTO<TaskDTO>> getAllTasksPage(@RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "UPDATED_AT") TaskSortKey sort) {
+        return ResponseEntity.ok(taskService.getAllTasksPage(cursor, limit, sort));
     }
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<TaskSummaryDTO> updateTask(@PathVariable Long id, @RequestBody TaskDTO taskDTO) {
-        Task updatedTask = taskService.updateTaskFromDTO(id, taskDTO);
-        return ResponseEntity.ok(taskService.toTaskSummaryDTO(updatedTask));
+    public ResponseEntity<TaskSummaryDTO> updateTask(@PathVariable Long id, @RequestBody TaskDTO taskDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Task updatedTask = taskService.updateTaskFromDTO(id, taskDTO, EntityTags.version(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(updatedTask.getVersion()))
+                .body(taskService.toTaskSummaryDTO(updatedTask));
+    }
+
+    @PatchMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<TaskBulkUpdateResultDTO> bulkUpdateTasks(@RequestBody TaskBulkUpdateDTO request) {
+        return ResponseEntity.ok(new TaskBulkUpdateResultDTO(taskService.bulkUpdateTasks(request)));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,55 @@
+package com.ironhack.taskithub.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.ironhack.taskithub.security.JwtTokens;
+import com.ironhack.taskithub.security.dto.RefreshTokenRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * TokenController
+ *
+ * POST /api/login itself is handled by security.filters.CustomAuthenticationFilter.
+ */
+@RestController
+@RequestMapping("/api")
+public class TokenController {
+    @Autowired
+    private JwtTokens jwtTokens;
+
+    @PostMapping("/token/refresh")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<Map<String, String>> refresh(@RequestBody RefreshTokenRequest refreshTokenRequest,
+            HttpServletRequest request) {
+        if (refreshTokenRequest.getRefreshToken() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "refresh_token is required");
+        }
+        try {
+            return ResponseEntity.ok(jwtTokens.refresh(refreshTokenRequest.getRefreshToken(),
+                    request.getRequestURL().toString()));
+        } catch (JWTVerificationException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+    }
+
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenRequest refreshTokenRequest,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String accessToken) {
+        try {
+            jwtTokens.revoke(refreshTokenRequest != null ? refreshTokenRequest.getRefreshToken() : null, accessToken);
+        } catch (JWTVerificationException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,13 +1,16 @@
 package com.ironhack.taskithub.controller;
 
+import java.net.URI;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.ironhack.taskithub.dto.UserDTO;
+import com.ironhack.taskithub.dto.UserDeletionJobDTO;
 import com.ironhack.taskithub.service.UserService;
 
 @RestController
@@ -32,7 +35,8 @@ public class UserController {
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+        UserDTO user = userService.getUserById(id);
+        return ResponseEntity.ok().eTag(EntityTags.of(user.getVersion())).body(user);
     }
 
     @GetMapping
@@ -43,15 +47,28 @@ public class UserController {
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @RequestBody UserDTO userDTO) {
-        UserDTO updatedUserDTO = userService.updateUserFromDTO(id, userDTO);
-        return ResponseEntity.ok(updatedUserDTO);
+    public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @RequestBody UserDTO userDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserDTO updatedUserDTO = userService.updateUserFromDTO(id, userDTO, EntityTags.version(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(updatedUserDTO.getVersion())).body(updatedUserDTO);
     }
 
+    /**
+     * 204 once the user is deleted, or 202 with the job deleting it in the
+     * background, see GET /users/delete-jobs/{jobId}.
+     */
     @DeleteMapping("/{id}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<UserDeletionJobDTO> deleteUser(@PathVariable Long id,
+            @RequestParam(required = false) Long successorId) {
+        return userService.deleteUser(id, successorId)
+                .map(job -> ResponseEntity.accepted().location(URI.create("/users/delete-jobs/" + job.getId()))
+                        .body(job))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/delete-jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<UserDeletionJobDTO> getDeletionJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(userService.getDeletionJob(jobId));
     }
 }
@@ -0,0 +1,28 @@
+package com.ironhack.taskithub.datasource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * DbTime
+ *
+ * The current time at the precision the database stores (datetime(6), i.e.
+ * microseconds). Values written through here compare equal to what is read
+ * back, which sync watermarks and tombstones rely on; MySQL would otherwise
+ * round the nanoseconds away on its own.
+ */
+public final class DbTime {
+    public static final ChronoUnit PRECISION = ChronoUnit.MICROS;
+
+    private DbTime() {
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(PRECISION);
+    }
+
+    public static Timestamp timestamp() {
+        return Timestamp.valueOf(now());
+    }
+}
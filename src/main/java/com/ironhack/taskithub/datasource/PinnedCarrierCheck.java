@@ -0,0 +1,119 @@
+package com.ironhack.taskithub.datasource;
+
+import java.io.IOException;
+import java.sql.Driver;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PinnedCarrierCheck
+ *
+ * Virtual threads run on a few carrier threads, one per core unless
+ * jdk.virtualThreadScheduler.parallelism says otherwise. MySQL Connector/J
+ * before 9.0 waits on the socket inside synchronized blocks, so every
+ * statement pins its carrier. Once the pools hold as many connections as
+ * there are carriers, a slow database can pin them all and stall requests
+ * that never touch it; this logs a warning at startup when that is possible.
+ *
+ * The scheduler reads its parallelism once, when the first virtual thread
+ * starts, so main calls reserveCarriers before Spring starts any: with the
+ * virtual-threads profile active and no parallelism given, it reserves a
+ * carrier for every connection of the primary and the replica pool plus one
+ * per core. Carriers are only started when there is work for them.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class PinnedCarrierCheck {
+    static final String PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+    static final String PROFILE = "virtual-threads";
+    private static final String PROFILES_ACTIVE = "spring.profiles.active";
+    private static final String POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+    @Autowired
+    private List<HikariDataSource> pools;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void check() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int carriers = Integer.getInteger(PARALLELISM, cores);
+        int pinningConnections = 0;
+        for (HikariDataSource pool : pools) {
+            if (pinsCarrier(pool.getDriverClassName())) {
+                pinningConnections += pool.getMaximumPoolSize();
+            }
+        }
+        if (pinningConnections >= carriers) {
+            log.warn("{} pooled connections can pin all {} carrier threads of the virtual threads, start the JVM with "
+                    + "-Djdk.virtualThreadScheduler.parallelism={} or use MySQL Connector/J 9.0 or later",
+                    pinningConnections, carriers, pinningConnections + cores);
+        }
+    }
+
+    public static void reserveCarriers(String[] args) {
+        if (System.getProperty(PARALLELISM) != null) {
+            return;
+        }
+        String profiles = setting(args, PROFILES_ACTIVE);
+        if (profiles == null || Arrays.stream(profiles.split(",")).map(String::trim).noneMatch(PROFILE::equals)) {
+            return;
+        }
+        String poolSize = setting(args, POOL_SIZE);
+        if (poolSize == null) {
+            poolSize = profilePoolSize();
+        }
+        int connections = 2 * Integer.parseInt(poolSize.trim());
+        System.setProperty(PARALLELISM, String.valueOf(connections + Runtime.getRuntime().availableProcessors()));
+    }
+
+    // command line first, then system property, then environment, as Spring resolves them
+    private static String setting(String[] args, String name) {
+        String prefix = "--" + name + "=";
+        for (int i = args.length - 1; i >= 0; i--) {
+            if (args[i].startsWith(prefix)) {
+                return args[i].substring(prefix.length());
+            }
+        }
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name.toUpperCase(Locale.ROOT).replace('.', '_').replace("-", ""));
+        }
+        return value;
+    }
+
+    private static String profilePoolSize() {
+        try {
+            return PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-" + PROFILE + ".properties"))
+                    .getProperty(POOL_SIZE, "10");
+        } catch (IOException e) {
+            return "10";
+        }
+    }
+
+    static boolean pinsCarrier(String driverClassName) {
+        if (driverClassName == null || !driverClassName.startsWith("com.mysql.")) {
+            return false;
+        }
+        try {
+            Driver driver = (Driver) ClassUtils.forName(driverClassName, PinnedCarrierCheck.class.getClassLoader())
+                    .getDeclaredConstructor().newInstance();
+            return driver.getMajorVersion() < 9;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+}
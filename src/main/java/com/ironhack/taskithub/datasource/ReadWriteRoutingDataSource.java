@@ -0,0 +1,57 @@
+package com.ironhack.taskithub.datasource;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ReadWriteRoutingDataSource
+ *
+ * Hands out replica connections only inside a read scope opened for the
+ * current thread (see ReplicaRoutingFilter), and only while the replica is
+ * usable. A read-write transaction inside the scope still goes to the
+ * primary. Everything else (writes, startup, scheduled jobs) uses the
+ * primary. Meant to sit behind a LazyConnectionDataSourceProxy so the
+ * decision is taken when the first statement runs, not when a transaction
+ * begins.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> READ_SCOPE = new ThreadLocal<>();
+
+    private final BooleanSupplier replicaUsable;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void openReadScope() {
+        READ_SCOPE.set(Boolean.TRUE);
+    }
+
+    public static void closeReadScope() {
+        READ_SCOPE.remove();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        if (!Boolean.TRUE.equals(READ_SCOPE.get())) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+        return replicaUsable.getAsBoolean() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
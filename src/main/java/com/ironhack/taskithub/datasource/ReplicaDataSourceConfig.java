@@ -0,0 +1,86 @@
+package com.ironhack.taskithub.datasource;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * ReplicaDataSourceConfig
+ *
+ * Active with taskithub.datasource.replica.enabled=true. The primary pool is
+ * built from spring.datasource.*, the replica pool from
+ * taskithub.datasource.replica.*; the application only sees the routing
+ * DataSource in front of both. Both pools are sized by
+ * spring.datasource.hikari.*, taskithub.datasource.replica.maximum-pool-size
+ * overrides the size of the replica pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "taskithub.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource replicaDataSource(DataSourceProperties primaryProperties,
+            @Value("${taskithub.datasource.replica.url}") String url,
+            @Value("${taskithub.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${taskithub.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${taskithub.datasource.replica.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int maximumPoolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setDriverClassName(primaryProperties.determineDriverClassName());
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+            @Value("${taskithub.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+            @Value("${taskithub.datasource.replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+            @Value("${taskithub.datasource.replica.max-lag-seconds:5}") long maxLagSeconds) {
+        return new ReplicaLagMonitor(replica, lagQuery, lagColumn, maxLagSeconds);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${taskithub.datasource.replica.read-your-writes-window:10s}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    @Bean
+    public ReplicaRoutingFilter replicaRoutingFilter(ReadYourWritesTracker tracker) {
+        return new ReplicaRoutingFilter(tracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, ReplicaLagMonitor lagMonitor) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, lagMonitor::isUsable));
+    }
+}
@@ -0,0 +1,59 @@
+package com.ironhack.taskithub.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReplicaLagMonitor
+ *
+ * Polls the replica for its replication delay. The replica is usable while
+ * the reported lag is known and within the tolerance; an unreachable replica
+ * or stopped replication (null lag) sends all reads back to the primary
+ * until the next successful check.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${taskithub.datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+        boolean nowUsable;
+        try {
+            Long lag = replica.query(lagQuery, rs -> rs.next() ? rs.getObject(lagColumn, Long.class) : null);
+            nowUsable = lag != null && lag <= maxLagSeconds;
+            if (!nowUsable && usable) {
+                log.warn("Replica lag {}s exceeds {}s, reading from the primary", lag, maxLagSeconds);
+            }
+        } catch (DataAccessException e) {
+            nowUsable = false;
+            if (usable) {
+                log.warn("Replica lag check failed, reading from the primary", e);
+            }
+        }
+        if (nowUsable && !usable) {
+            log.info("Replica within {}s lag, serving reads from it", maxLagSeconds);
+        }
+        usable = nowUsable;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ironhack.taskithub.datasource;
+
+import java.io.IOException;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * ReplicaRoutingFilter
+ *
+ * Opens a read scope for GET and HEAD requests, unless the caller changed
+ * something within the read-your-writes window. Any other request marks the
+ * caller as a recent writer. Runs after the security filter chain so the
+ * caller is known.
+ */
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+    private final ReadYourWritesTracker tracker;
+
+    public ReplicaRoutingFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String username = currentUsername();
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (read && (username == null || !tracker.wroteRecently(username))) {
+            ReadWriteRoutingDataSource.openReadScope();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.closeReadScope();
+            // recorded whatever the outcome, a failed request may still have committed part of its work
+            if (!read && username != null) {
+                tracker.recordWrite(username);
+            }
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ironhack.taskithub.datasource;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RequestConcurrencyConfig
+ *
+ * Active with taskithub.http.max-concurrent-requests above 0, which the
+ * virtual-threads profile sets. On platform threads
+ * server.tomcat.threads.max already bounds the requests in progress.
+ */
+@Configuration
+@ConditionalOnExpression("${taskithub.http.max-concurrent-requests:0} > 0")
+public class RequestConcurrencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestConcurrencyFilter> requestConcurrencyFilter(MeterRegistry meterRegistry,
+            @Value("${taskithub.http.max-concurrent-requests}") int maxConcurrentRequests,
+            @Value("${taskithub.http.concurrency-wait:100ms}") Duration wait) {
+        FilterRegistrationBean<RequestConcurrencyFilter> registration = new FilterRegistrationBean<>(
+                new RequestConcurrencyFilter(maxConcurrentRequests, wait, meterRegistry));
+        // ahead of the security filters, a rejected request costs no token check and no login
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
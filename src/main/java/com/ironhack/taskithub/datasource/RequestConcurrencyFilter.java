@@ -0,0 +1,91 @@
+package com.ironhack.taskithub.datasource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * RequestConcurrencyFilter
+ *
+ * Caps the requests handled at once. On virtual threads Tomcat no longer
+ * bounds them by its thread pool, and every request beyond what the
+ * connection pool serves would queue for a connection until
+ * spring.datasource.hikari.connection-timeout. Here a request waits at most
+ * the configured time for a permit and is then answered 503 with
+ * Retry-After, before the security filters did any work for it.
+ *
+ * The permit is held while the request is dispatched, not while an async
+ * response (GET /tasks/events) stays open, and health checks are never
+ * turned away.
+ */
+public class RequestConcurrencyFilter extends OncePerRequestFilter {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String HEALTH = "/actuator/health";
+
+    private final Semaphore permits;
+    private final Duration wait;
+    private final Counter rejected;
+
+    public RequestConcurrencyFilter(int maxConcurrentRequests, Duration wait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.wait = wait;
+        this.rejected = Counter.builder("taskithub.http.requests.rejected")
+                .description("Requests answered 503 because taskithub.http.max-concurrent-requests were in progress")
+                .register(meterRegistry);
+        Gauge.builder("taskithub.http.requests.active", permits,
+                semaphore -> maxConcurrentRequests - semaphore.availablePermits())
+                .description("Requests holding a concurrency permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length()).startsWith(HEALTH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(RETRY_AFTER, "1");
+            response.setContentType(APPLICATION_JSON_VALUE);
+            OBJECT_MAPPER.writeValue(response.getOutputStream(),
+                    Collections.singletonMap("error_message", "Too many requests in progress, retry shortly"));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(wait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
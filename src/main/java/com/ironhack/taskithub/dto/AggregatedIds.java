@@ -0,0 +1,27 @@
+package com.ironhack.taskithub.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AggregatedIds
+ *
+ * Parses the comma separated id lists that projection queries build with
+ * listagg (GROUP_CONCAT on MySQL).
+ */
+public final class AggregatedIds {
+
+    private AggregatedIds() {
+    }
+
+    public static List<Long> parse(String aggregated) {
+        List<Long> ids = new ArrayList<>();
+        if (aggregated == null || aggregated.isEmpty()) {
+            return ids;
+        }
+        for (String id : aggregated.split(",")) {
+            ids.add(Long.valueOf(id));
+        }
+        return ids;
+    }
+}
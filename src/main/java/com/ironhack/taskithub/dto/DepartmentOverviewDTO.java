@@ -0,0 +1,38 @@
+package com.ironhack.taskithub.dto;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DepartmentOverviewDTO
+ *
+ * Department with counts instead of id lists. Tasks without a status or
+ * priority are part of taskCount but of neither breakdown.
+ */
+@Data
+@NoArgsConstructor
+public class DepartmentOverviewDTO {
+    private Long id;
+    private String name;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private long userCount;
+    private long taskCount;
+    private Map<Status, Long> tasksByStatus = new EnumMap<>(Status.class);
+    private Map<Priority, Long> tasksByPriority = new EnumMap<>(Priority.class);
+
+    // used by the projection queries in DepartmentRepository
+    public DepartmentOverviewDTO(Long id, String name, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -16,4 +16,5 @@ public class DepartmentSummaryDTO {
     private LocalDateTime updatedAt;
     private List<Long> userIds;
     private List<Long> taskIds;
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.ironhack.taskithub.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
+
+import lombok.Data;
+
+/**
+ * TaskBulkUpdateDTO
+ *
+ * Selects tasks by any combination of ids, department, current status and
+ * due date range (inclusive), and sets status and/or priority on all of them.
+ */
+@Data
+public class TaskBulkUpdateDTO {
+    private List<Long> ids;
+    private Long departmentId;
+    private Status currentStatus;
+    private LocalDateTime dueFrom;
+    private LocalDateTime dueTo;
+
+    private Status status;
+    private Priority priority;
+}
@@ -0,0 +1,15 @@
+package com.ironhack.taskithub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskBulkUpdateResultDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskBulkUpdateResultDTO {
+    private int affected;
+}
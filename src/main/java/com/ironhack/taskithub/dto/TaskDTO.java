@@ -8,11 +8,13 @@ import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.enums.*;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * TaskDTO
  */
 @Data
+@NoArgsConstructor
 public class TaskDTO {
     private Long id;
     private String title;
@@ -24,6 +26,19 @@ public class TaskDTO {
     private Long createdById;
     private List<Long> assignedUserIds;
 
+    // used by the projection queries in TaskRepository
+    public TaskDTO(Long id, String title, String description, LocalDateTime dueDate, Priority priority, Status status,
+            Long departmentId, Long createdById) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.status = status;
+        this.departmentId = departmentId;
+        this.createdById = createdById;
+    }
+
     public Task toTask() {
         Task task = new Task();
         task.setId(this.id);
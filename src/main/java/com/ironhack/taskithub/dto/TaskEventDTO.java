@@ -0,0 +1,22 @@
+package com.ironhack.taskithub.dto;
+
+import com.ironhack.taskithub.enums.TaskEventType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskEventDTO
+ *
+ * Data of one event on GET /tasks/events. task holds the state after the
+ * change and is left out for DELETED and RESET.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskEventDTO {
+    private TaskEventType type;
+    private Long taskId;
+    private TaskSummaryDTO task;
+}
@@ -0,0 +1,18 @@
+package com.ironhack.taskithub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskImportErrorDTO
+ *
+ * A row that was not imported. Rows are numbered from 1 in input order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskImportErrorDTO {
+    private int row;
+    private String message;
+}
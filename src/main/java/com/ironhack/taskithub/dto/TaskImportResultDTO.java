@@ -0,0 +1,18 @@
+package com.ironhack.taskithub.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskImportResultDTO
+ */
+@Data
+@NoArgsConstructor
+public class TaskImportResultDTO {
+    private int received;
+    private int imported;
+    private List<TaskImportErrorDTO> errors = new ArrayList<>();
+}
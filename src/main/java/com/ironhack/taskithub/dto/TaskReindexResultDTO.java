@@ -0,0 +1,15 @@
+package com.ironhack.taskithub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskReindexResultDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskReindexResultDTO {
+    private long indexed;
+}
@@ -0,0 +1,33 @@
+package com.ironhack.taskithub.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
+
+import lombok.Data;
+
+/**
+ * TaskSearchDTO
+ *
+ * Filters of GET /tasks/search, bound from the query string. Set filters are
+ * combined with AND, several values of status or priority with OR; the due
+ * date range is inclusive.
+ */
+@Data
+public class TaskSearchDTO {
+    private Long departmentId;
+    private Long createdById;
+    private Long assigneeId;
+    private List<Status> status;
+    private List<Priority> priority;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueTo;
+}
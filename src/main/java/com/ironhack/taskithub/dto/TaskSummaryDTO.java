@@ -6,11 +6,13 @@ import java.util.List;
 import com.ironhack.taskithub.enums.*;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * TaskSummaryDTO
  */
 @Data
+@NoArgsConstructor
 public class TaskSummaryDTO {
     private Long id;
     private String title;
@@ -23,7 +25,30 @@ public class TaskSummaryDTO {
     private Long departmentId;
     private Long createdById;
     private List<Long> assignedUserIds;
+    private Long version;
 
-    
+    // used by the projection queries in TaskRepository
+    public TaskSummaryDTO(Long id, String title, String description, LocalDateTime createdAt, LocalDateTime updatedAt,
+            LocalDateTime dueDate, Priority priority, Status status, Long departmentId, Long createdById,
+            Long version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.status = status;
+        this.departmentId = departmentId;
+        this.createdById = createdById;
+        this.version = version;
+    }
 
+    public TaskSummaryDTO(Long id, String title, String description, LocalDateTime createdAt, LocalDateTime updatedAt,
+            LocalDateTime dueDate, Priority priority, Status status, Long departmentId, Long createdById,
+            Long version, String assignedUserIds) {
+        this(id, title, description, createdAt, updatedAt, dueDate, priority, status, departmentId, createdById,
+                version);
+        this.assignedUserIds = AggregatedIds.parse(assignedUserIds);
+    }
 }
@@ -0,0 +1,26 @@
+package com.ironhack.taskithub.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskSyncDTO
+ *
+ * The changes of a task list since a watermark: tasks added or changed, and
+ * ids of tasks that left the list. A task appears in at most one of the two,
+ * so clients can apply removed and changed in any order. Pass watermark to
+ * the next call; while hasMore is set the client should call again right
+ * away.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSyncDTO {
+    private List<TaskSummaryDTO> changed;
+    private List<Long> removed;
+    private String watermark;
+    private boolean hasMore;
+}
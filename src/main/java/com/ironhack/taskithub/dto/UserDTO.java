@@ -3,12 +3,16 @@ package com.ironhack.taskithub.dto;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.ironhack.taskithub.enums.Role;
+
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * UserDTO
  */
 @Data
+@NoArgsConstructor
 public class UserDTO {
     private Long id;
     private String name;
@@ -19,4 +23,20 @@ public class UserDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<Long> taskIds;
-}
\ No newline at end of file
+    private Long version;
+
+    // used by the projection queries in UserRepository
+    public UserDTO(Long id, String name, String username, String password, Role role, Long departmentId,
+            LocalDateTime createdAt, LocalDateTime updatedAt, Long version, String taskIds) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.password = password;
+        this.role = role != null ? role.name() : null;
+        this.departmentId = departmentId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+        this.taskIds = AggregatedIds.parse(taskIds);
+    }
+}
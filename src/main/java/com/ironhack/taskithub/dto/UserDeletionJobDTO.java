@@ -0,0 +1,32 @@
+package com.ironhack.taskithub.dto;
+
+import java.time.LocalDateTime;
+
+import com.ironhack.taskithub.enums.UserDeletionStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserDeletionJobDTO
+ *
+ * Progress of a user deletion running in the background. total counts the
+ * user's task references when the job started (assignments and created
+ * tasks), processed those detached so far; tasks assigned while the job
+ * runs are detached as well, so processed can end up above total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDeletionJobDTO {
+    private String id;
+    private Long userId;
+    private Long successorId;
+    private UserDeletionStatus status;
+    private long total;
+    private long processed;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
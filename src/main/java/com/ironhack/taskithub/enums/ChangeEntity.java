@@ -0,0 +1,10 @@
+package com.ironhack.taskithub.enums;
+
+/**
+ * ChangeEntity
+ */
+public enum ChangeEntity {
+    TASK,
+    USER,
+    DEPARTMENT
+}
@@ -0,0 +1,10 @@
+package com.ironhack.taskithub.enums;
+
+/**
+ * ChangeType
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,15 @@
+package com.ironhack.taskithub.enums;
+
+/**
+ * TaskEventType
+ *
+ * RESET tells a subscriber that events were lost (server restart, or it fell
+ * further behind than the replay buffer reaches) and its copy has to be
+ * refetched.
+ */
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    RESET
+}
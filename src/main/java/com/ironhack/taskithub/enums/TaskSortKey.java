@@ -0,0 +1,9 @@
+package com.ironhack.taskithub.enums;
+
+/**
+ * TaskSortKey
+ */
+public enum TaskSortKey {
+    UPDATED_AT,
+    DUE_DATE
+}
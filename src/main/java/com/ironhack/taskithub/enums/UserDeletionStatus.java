@@ -0,0 +1,10 @@
+package com.ironhack.taskithub.enums;
+
+/**
+ * UserDeletionStatus
+ */
+public enum UserDeletionStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
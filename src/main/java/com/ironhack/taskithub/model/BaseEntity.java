@@ -10,6 +10,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 /**
  * BaseEntity
+ *
+ * version is checked and incremented by every update, so a write based on a
+ * stale read fails instead of overwriting the newer state.
  */
 @MappedSuperclass
 @Data
@@ -24,4 +27,7 @@ public abstract class BaseEntity {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
 }
@@ -2,6 +2,10 @@ package com.ironhack.taskithub.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.OneToMany;
 import lombok.Data;
@@ -9,8 +13,13 @@ import lombok.EqualsAndHashCode;
 
 /**
  * Department
+ *
+ * Cached in the second-level cache (region bounds in application.conf), the
+ * tasks and users collections are not.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Department extends BaseEntity {
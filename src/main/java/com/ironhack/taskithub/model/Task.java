@@ -7,9 +7,12 @@ import java.util.List;
 import com.ironhack.taskithub.enums.Priority;
 import com.ironhack.taskithub.enums.Status;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -19,6 +22,10 @@ import lombok.EqualsAndHashCode;
 
 /**
  * Task
+ *
+ * All associations are lazy; listings read projections from TaskRepository
+ * instead of entities. Summaries of a loaded task only read the ids of
+ * department and createdBy, which the proxies answer without a query.
  */
 @Entity
 @Data
@@ -34,22 +41,24 @@ public class Task extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private Status status;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_id")
     private User createdBy;
 
+    // keyset pages load the assignees of a whole page (at most TaskService.MAX_PAGE_SIZE tasks) in one query
     @ManyToMany
+    @BatchSize(size = 200)
     @JoinTable(
         name = "task_assigned_users", 
         joinColumns = @JoinColumn(name = "task_id"), 
         inverseJoinColumns = @JoinColumn(name = "user_id"))
     private List<User> assignedUsers = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id")
     private Department department;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User manager;
 
     @ManyToMany
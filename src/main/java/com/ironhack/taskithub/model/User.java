@@ -5,9 +5,14 @@ import java.util.List;
 
 import com.ironhack.taskithub.enums.Role;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
@@ -16,8 +21,13 @@ import lombok.EqualsAndHashCode;
 
 /**
  * User
+ *
+ * Cached in the second-level cache (region bounds in application.conf), the
+ * tasks collection is not.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class User extends BaseEntity {
@@ -28,7 +38,7 @@ public class User extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private Role role;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id")
     private Department department;
 
@@ -1,8 +1,15 @@
 package com.ironhack.taskithub.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
 import com.ironhack.taskithub.model.Department;
 
 /**
@@ -13,7 +20,16 @@ public interface DepartmentRepository extends JpaRepository<Department, Long>{
 
     Department findByName(String name);
 
-    Boolean existsByName(String name);
 
-    
+    @Query("select d.id from Department d where d.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    // counts are added by DepartmentService from the grouped queries on tasks and users
+    @Query("select new com.ironhack.taskithub.dto.DepartmentOverviewDTO(d.id, d.name, d.createdAt, d.updatedAt) "
+            + "from Department d order by d.id")
+    List<DepartmentOverviewDTO> findAllOverviews();
+
+    @Query("select new com.ironhack.taskithub.dto.DepartmentOverviewDTO(d.id, d.name, d.createdAt, d.updatedAt) "
+            + "from Department d where d.id = :id")
+    Optional<DepartmentOverviewDTO> findOverviewById(Long id);
 }
@@ -1,19 +1,180 @@
 package com.ironhack.taskithub.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
 import com.ironhack.taskithub.model.Task;
 
 /**
  * TaskRepository
  */
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long>{
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+    // Read-only projections: DTOs are built straight from the columns, nothing enters the persistence context.
+    String TASK_ROW = "select new com.ironhack.taskithub.dto.TaskDTO(t.id, t.title, t.description, t.dueDate, "
+            + "t.priority, t.status, t.department.id, t.createdBy.id) ";
+    String SUMMARY_ROW = "select new com.ironhack.taskithub.dto.TaskSummaryDTO(t.id, t.title, t.description, "
+            + "t.createdAt, t.updatedAt, t.dueDate, t.priority, t.status, t.department.id, t.createdBy.id, t.version";
+    String SUMMARY_WITH_ASSIGNEES = SUMMARY_ROW
+            + ", listagg(cast(u.id as String), ',') within group (order by u.id)) "
+            + "from Task t left join t.assignedUsers u ";
+    String SUMMARY_GROUP_BY = " group by t.id, t.title, t.description, t.createdAt, t.updatedAt, t.dueDate, "
+            + "t.priority, t.status, t.department.id, t.createdBy.id, t.version order by t.id";
+    // full-text index feed (see service.TaskSearchIndex): only the fields a search matches on
+    String INDEX_ROW = "select t.id as id, t.title as title, t.description as description, "
+            + "t.department.id as departmentId, t.status as status from Task t ";
+
     List<Task> findByDepartmentId(Long departmentId);
     List<Task> findByAssignedUsers_Id(Long userId);
     List<Task> findByCreatedBy_Id(Long userId);
-    
+
+    @Query(TASK_ROW + "from Task t order by t.id")
+    List<TaskDTO> findAllTaskDTOs();
+
+    @Query(SUMMARY_WITH_ASSIGNEES + "where t.id = :id" + SUMMARY_GROUP_BY)
+    Optional<TaskSummaryDTO> findSummaryById(Long id);
+
+    @Query(SUMMARY_WITH_ASSIGNEES + "where t.department.id = :departmentId" + SUMMARY_GROUP_BY)
+    List<TaskSummaryDTO> findSummariesByDepartmentId(Long departmentId);
+
+    @Query(SUMMARY_WITH_ASSIGNEES + "where t.createdBy.id = :userId" + SUMMARY_GROUP_BY)
+    List<TaskSummaryDTO> findSummariesByCreatedById(Long userId);
+
+    @Query(SUMMARY_WITH_ASSIGNEES + "where exists (select a from t.assignedUsers a where a.id = :userId)"
+            + SUMMARY_GROUP_BY)
+    List<TaskSummaryDTO> findSummariesByAssigneeId(Long userId);
+
+    @Query(SUMMARY_WITH_ASSIGNEES + "where t.id in :ids" + SUMMARY_GROUP_BY)
+    List<TaskSummaryDTO> findSummariesByIds(Collection<Long> ids);
+
+    @Query("select t.id as taskId, listagg(cast(u.id as String), ',') within group (order by u.id) as assigneeIds "
+            + "from Task t join t.assignedUsers u where t.id in :taskIds group by t.id")
+    List<TaskAssigneeIds> findAssigneeIdsByTaskIds(Collection<Long> taskIds);
+
+    interface TaskAssigneeIds {
+        Long getTaskId();
+
+        String getAssigneeIds();
+    }
+
+    // Department overviews: one row per (department, status, priority), however many tasks there are.
+
+    @Query("select t.department.id as departmentId, t.status as status, t.priority as priority, count(t) as tasks "
+            + "from Task t where t.department is not null group by t.department.id, t.status, t.priority")
+    List<DepartmentTaskCount> countByDepartmentStatusAndPriority();
+
+    @Query("select t.department.id as departmentId, t.status as status, t.priority as priority, count(t) as tasks "
+            + "from Task t where t.department.id = :departmentId group by t.department.id, t.status, t.priority")
+    List<DepartmentTaskCount> countByStatusAndPriorityForDepartment(Long departmentId);
+
+    interface DepartmentTaskCount {
+        Long getDepartmentId();
+
+        Status getStatus();
+
+        Priority getPriority();
+
+        long getTasks();
+    }
+
+    @Query("select t.id from Task t where t.department.id = :departmentId and t.id > :afterId order by t.id")
+    List<Long> findIdsByDepartmentId(Long departmentId, Long afterId, Limit limit);
+
+    // Full-text index feed, in id order for the rebuild and by id for the changes relayed from the outbox.
+
+    @Query(INDEX_ROW + "where t.id > :afterId order by t.id")
+    List<TaskIndexRow> findIndexRows(Long afterId, Limit limit);
+
+    @Query(INDEX_ROW + "where t.id in :ids")
+    List<TaskIndexRow> findIndexRowsByIds(Collection<Long> ids);
+
+    interface TaskIndexRow {
+        Long getId();
+
+        String getTitle();
+
+        String getDescription();
+
+        Long getDepartmentId();
+
+        Status getStatus();
+    }
+
+    @Query("select distinct t.department.id from Task t where t.id in :ids and t.department is not null")
+    List<Long> findDepartmentIdsByIds(Collection<Long> ids);
+
+    @Query("select distinct u.id from Task t join t.assignedUsers u where t.id in :ids")
+    List<Long> findAssigneeIdsByIds(Collection<Long> ids);
+
+    // Keyset pages: every query resumes strictly after the (sort value, id) of the last row served,
+    // so the cost of a page does not depend on how deep the client has scrolled. Rows come without
+    // assignees, those are added for the whole page with findAssigneeIdsByTaskIds.
+
+    @Query(SUMMARY_ROW + ") from Task t "
+            + "where t.updatedAt > :updatedAt or (t.updatedAt = :updatedAt and t.id > :id) "
+            + "order by t.updatedAt, t.id")
+    List<TaskSummaryDTO> findAllByUpdatedAtKeyset(LocalDateTime updatedAt, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t "
+            + "where t.dueDate > :dueDate or (t.dueDate = :dueDate and t.id > :id) "
+            + "order by t.dueDate, t.id")
+    List<TaskSummaryDTO> findAllByDueDateKeyset(LocalDateTime dueDate, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.dueDate is null and t.id > :id order by t.id")
+    List<TaskSummaryDTO> findAllWithoutDueDateKeyset(Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.department.id = :departmentId "
+            + "and (t.updatedAt > :updatedAt or (t.updatedAt = :updatedAt and t.id > :id)) "
+            + "order by t.updatedAt, t.id")
+    List<TaskSummaryDTO> findByDepartmentUpdatedAtKeyset(Long departmentId, LocalDateTime updatedAt, Long id,
+            Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.department.id = :departmentId "
+            + "and (t.dueDate > :dueDate or (t.dueDate = :dueDate and t.id > :id)) "
+            + "order by t.dueDate, t.id")
+    List<TaskSummaryDTO> findByDepartmentDueDateKeyset(Long departmentId, LocalDateTime dueDate, Long id,
+            Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.department.id = :departmentId and t.dueDate is null and t.id > :id "
+            + "order by t.id")
+    List<TaskSummaryDTO> findByDepartmentWithoutDueDateKeyset(Long departmentId, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.createdBy.id = :userId "
+            + "and (t.updatedAt > :updatedAt or (t.updatedAt = :updatedAt and t.id > :id)) "
+            + "order by t.updatedAt, t.id")
+    List<TaskSummaryDTO> findByCreatorUpdatedAtKeyset(Long userId, LocalDateTime updatedAt, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.createdBy.id = :userId "
+            + "and (t.dueDate > :dueDate or (t.dueDate = :dueDate and t.id > :id)) "
+            + "order by t.dueDate, t.id")
+    List<TaskSummaryDTO> findByCreatorDueDateKeyset(Long userId, LocalDateTime dueDate, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t where t.createdBy.id = :userId and t.dueDate is null and t.id > :id "
+            + "order by t.id")
+    List<TaskSummaryDTO> findByCreatorWithoutDueDateKeyset(Long userId, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t join t.assignedUsers u where u.id = :userId "
+            + "and (t.updatedAt > :updatedAt or (t.updatedAt = :updatedAt and t.id > :id)) "
+            + "order by t.updatedAt, t.id")
+    List<TaskSummaryDTO> findByAssigneeUpdatedAtKeyset(Long userId, LocalDateTime updatedAt, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t join t.assignedUsers u where u.id = :userId "
+            + "and (t.dueDate > :dueDate or (t.dueDate = :dueDate and t.id > :id)) "
+            + "order by t.dueDate, t.id")
+    List<TaskSummaryDTO> findByAssigneeDueDateKeyset(Long userId, LocalDateTime dueDate, Long id, Limit limit);
+
+    @Query(SUMMARY_ROW + ") from Task t join t.assignedUsers u where u.id = :userId and t.dueDate is null "
+            + "and t.id > :id order by t.id")
+    List<TaskSummaryDTO> findByAssigneeWithoutDueDateKeyset(Long userId, Long id, Limit limit);
 }
@@ -0,0 +1,40 @@
+package com.ironhack.taskithub.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.model.Task;
+
+/**
+ * TaskRepositoryCustom
+ */
+public interface TaskRepositoryCustom {
+    /**
+     * Ids of the tasks matching the filter of the request that the change
+     * would alter, locked (SELECT ... FOR UPDATE) until the transaction ends.
+     * Tasks that already have the requested values are left out, so their
+     * updatedAt does not move.
+     */
+    List<Long> lockIdsToBulkUpdate(TaskBulkUpdateDTO request);
+
+    /**
+     * Applies the status/priority change of the request to the given tasks
+     * in one UPDATE statement.
+     *
+     * @return the number of tasks changed
+     */
+    int bulkUpdate(Collection<Long> ids, TaskBulkUpdateDTO request, LocalDateTime updatedAt);
+
+    /**
+     * Summaries (without assignees) of the tasks matching the specification,
+     * projected in the query like the other summary listings.
+     */
+    List<TaskSummaryDTO> findSummaries(Specification<Task> specification, Sort sort, Limit limit);
+}
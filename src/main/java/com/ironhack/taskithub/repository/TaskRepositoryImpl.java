@@ -0,0 +1,119 @@
+package com.ironhack.taskithub.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.model.Task;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * TaskRepositoryImpl
+ */
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> lockIdsToBulkUpdate(TaskBulkUpdateDTO request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Task> task = query.from(Task.class);
+
+        List<Predicate> filter = new ArrayList<>();
+        if (request.getIds() != null) {
+            filter.add(task.get("id").in(request.getIds()));
+        }
+        if (request.getDepartmentId() != null) {
+            filter.add(cb.equal(task.get("department").get("id"), request.getDepartmentId()));
+        }
+        if (request.getCurrentStatus() != null) {
+            filter.add(cb.equal(task.get("status"), request.getCurrentStatus()));
+        }
+        if (request.getDueFrom() != null) {
+            filter.add(cb.greaterThanOrEqualTo(task.get("dueDate"), request.getDueFrom()));
+        }
+        if (request.getDueTo() != null) {
+            filter.add(cb.lessThanOrEqualTo(task.get("dueDate"), request.getDueTo()));
+        }
+
+        List<Predicate> changes = new ArrayList<>();
+        if (request.getStatus() != null) {
+            changes.add(differs(cb, task.get("status"), request.getStatus()));
+        }
+        if (request.getPriority() != null) {
+            changes.add(differs(cb, task.get("priority"), request.getPriority()));
+        }
+        filter.add(cb.or(changes.toArray(new Predicate[0])));
+
+        // locked in id order, so two bulk updates over the same tasks cannot deadlock
+        query.select(task.get("id")).where(filter.toArray(new Predicate[0])).orderBy(cb.asc(task.get("id")));
+        return entityManager.createQuery(query).setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+    }
+
+    @Override
+    public int bulkUpdate(Collection<Long> ids, TaskBulkUpdateDTO request, LocalDateTime updatedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+
+        if (request.getStatus() != null) {
+            update.set(task.get("status"), request.getStatus());
+        }
+        if (request.getPriority() != null) {
+            update.set(task.get("priority"), request.getPriority());
+        }
+        update.set(task.get("updatedAt"), updatedAt);
+        // a bulk statement bypasses Hibernate's version handling, editors holding the old version must fail
+        Path<Long> version = task.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        update.where(task.get("id").in(ids));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<TaskSummaryDTO> findSummaries(Specification<Task> specification, Sort sort, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskSummaryDTO> query = cb.createQuery(TaskSummaryDTO.class);
+        Root<Task> task = query.from(Task.class);
+
+        query.select(cb.construct(TaskSummaryDTO.class, task.get("id"), task.get("title"), task.get("description"),
+                task.get("createdAt"), task.get("updatedAt"), task.get("dueDate"), task.get("priority"),
+                task.get("status"), task.get("department").get("id"), task.get("createdBy").get("id"),
+                task.get("version")));
+        Predicate predicate = specification.toPredicate(task, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, task, cb));
+
+        TypedQuery<TaskSummaryDTO> typedQuery = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typedQuery.setMaxResults(limit.max());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private static <T> Predicate differs(CriteriaBuilder cb, Path<T> column, T value) {
+        return cb.or(cb.isNull(column), cb.notEqual(column, value));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ironhack.taskithub.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ironhack.taskithub.dto.TaskSearchDTO;
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.model.User;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * TaskSpecifications
+ *
+ * Composable predicates over Task for the search endpoint. Every filter maps
+ * to a column that leads one of the task indexes (see db/migration), and the
+ * keyset conditions match the (sort value, id) order those indexes return.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    /**
+     * All filters of the request combined with AND; filters that are not set
+     * are left out.
+     */
+    public static Specification<Task> matching(TaskSearchDTO search) {
+        List<Specification<Task>> filters = new ArrayList<>();
+        if (search.getDepartmentId() != null) {
+            filters.add(inDepartment(search.getDepartmentId()));
+        }
+        if (search.getCreatedById() != null) {
+            filters.add(createdBy(search.getCreatedById()));
+        }
+        if (search.getAssigneeId() != null) {
+            filters.add(assignedTo(search.getAssigneeId()));
+        }
+        if (search.getStatus() != null && !search.getStatus().isEmpty()) {
+            filters.add(hasStatus(search.getStatus()));
+        }
+        if (search.getPriority() != null && !search.getPriority().isEmpty()) {
+            filters.add(hasPriority(search.getPriority()));
+        }
+        if (search.getDueFrom() != null) {
+            filters.add(dueFrom(search.getDueFrom()));
+        }
+        if (search.getDueTo() != null) {
+            filters.add(dueTo(search.getDueTo()));
+        }
+        return Specification.allOf(filters);
+    }
+
+    public static Specification<Task> inDepartment(Long departmentId) {
+        return (task, query, cb) -> cb.equal(task.get("department").get("id"), departmentId);
+    }
+
+    public static Specification<Task> createdBy(Long userId) {
+        return (task, query, cb) -> cb.equal(task.get("createdBy").get("id"), userId);
+    }
+
+    // a subquery rather than a join: a task listing the user twice must still come back once
+    public static Specification<Task> assignedTo(Long userId) {
+        return (task, query, cb) -> {
+            Subquery<Long> assignment = query.subquery(Long.class);
+            Root<Task> assigned = assignment.correlate(task);
+            assignment.select(cb.literal(1L))
+                    .where(cb.equal(assigned.<Task, User>join("assignedUsers").get("id"), userId));
+            return cb.exists(assignment);
+        };
+    }
+
+    public static Specification<Task> hasStatus(Collection<Status> statuses) {
+        return (task, query, cb) -> task.get("status").in(statuses);
+    }
+
+    public static Specification<Task> hasPriority(Collection<Priority> priorities) {
+        return (task, query, cb) -> task.get("priority").in(priorities);
+    }
+
+    public static Specification<Task> dueFrom(LocalDateTime from) {
+        return (task, query, cb) -> cb.greaterThanOrEqualTo(task.get("dueDate"), from);
+    }
+
+    public static Specification<Task> dueTo(LocalDateTime to) {
+        return (task, query, cb) -> cb.lessThanOrEqualTo(task.get("dueDate"), to);
+    }
+
+    // Keyset positions, the same conditions as the @Query keyset pages on TaskRepository.
+
+    public static Specification<Task> updatedAfter(LocalDateTime updatedAt, Long id) {
+        return (task, query, cb) -> cb.or(
+                cb.greaterThan(task.get("updatedAt"), updatedAt),
+                cb.and(cb.equal(task.get("updatedAt"), updatedAt), cb.greaterThan(task.get("id"), id)));
+    }
+
+    public static Specification<Task> dueAfter(LocalDateTime dueDate, Long id) {
+        return (task, query, cb) -> cb.or(
+                cb.greaterThan(task.get("dueDate"), dueDate),
+                cb.and(cb.equal(task.get("dueDate"), dueDate), cb.greaterThan(task.get("id"), id)));
+    }
+
+    public static Specification<Task> withoutDueDateAfter(Long id) {
+        return (task, query, cb) -> cb.and(cb.isNull(task.get("dueDate")), cb.greaterThan(task.get("id"), id));
+    }
+}
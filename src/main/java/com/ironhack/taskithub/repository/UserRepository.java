@@ -1,10 +1,16 @@
 package com.ironhack.taskithub.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.ironhack.taskithub.dto.UserDTO;
 import com.ironhack.taskithub.enums.Role;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.User;
@@ -16,13 +22,48 @@ import com.ironhack.taskithub.model.User;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Read-only projection: the DTO and its task ids come from one grouped statement.
+    String USER_WITH_TASKS = "select new com.ironhack.taskithub.dto.UserDTO(u.id, u.name, u.username, u.password, "
+            + "u.role, u.department.id, u.createdAt, u.updatedAt, u.version, "
+            + "listagg(cast(t.id as String), ',') within group (order by t.id)) "
+            + "from User u left join u.tasks t ";
+    String USER_GROUP_BY = " group by u.id, u.name, u.username, u.password, u.role, u.department.id, "
+            + "u.createdAt, u.updatedAt, u.version order by u.id";
+
     List<User> findByDepartment(Department department);
 
-    List<User> findByUsername(String username);
+    Optional<User> findByUsername(String username);
 
     List<User> findByRole(Role role);
 
     List<User> findByDepartmentId(Long departmentId);
 
     Boolean existsByUsername(String username);
+
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select u.department.id as departmentId, count(u) as users from User u "
+            + "where u.department is not null group by u.department.id")
+    List<DepartmentUserCount> countByDepartment();
+
+    long countByDepartmentId(Long departmentId);
+
+    interface DepartmentUserCount {
+        Long getDepartmentId();
+
+        long getUsers();
+    }
+
+    @Query("select u.id from User u where u.department.id = :departmentId and u.id > :afterId order by u.id")
+    List<Long> findIdsByDepartmentId(Long departmentId, Long afterId, Limit limit);
+
+    @Query(USER_WITH_TASKS + USER_GROUP_BY)
+    List<UserDTO> findAllUserDTOs();
+
+    @Query(USER_WITH_TASKS + "where u.id = :id" + USER_GROUP_BY)
+    Optional<UserDTO> findUserDTOById(Long id);
+
+    @Query(USER_WITH_TASKS + "where u.username = :username" + USER_GROUP_BY)
+    List<UserDTO> findUserDTOsByUsername(String username);
 }
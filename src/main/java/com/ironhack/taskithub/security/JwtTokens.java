@@ -0,0 +1,175 @@
+package com.ironhack.taskithub.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.ironhack.taskithub.service.UserService;
+
+/**
+ * JwtTokens
+ *
+ * Issues the access tokens (taskithub.security.access-token-ttl) and refresh
+ * tokens (taskithub.security.refresh-token-ttl) handed out by POST /api/login.
+ * A refresh token only buys new access tokens at POST /api/token/refresh,
+ * which takes the user's current roles from the login cache instead of
+ * checking a password again. Every token carries an id (jti) so it can be
+ * revoked, see TokenRevocations.
+ *
+ * A refresh token carries a stamp of the password hash it was issued under
+ * and stops working once the password changes. Each use revokes it and hands
+ * out a new one with the same expiry. The revocation is inserted before any
+ * token is issued and its primary key decides which of concurrent uses, on
+ * any node, wins; so a leaked refresh token works at most once more and no
+ * session outlives the first login by more than
+ * taskithub.security.refresh-token-ttl.
+ */
+@Component
+public class JwtTokens {
+    static final Algorithm ALGORITHM = Algorithm.HMAC256("secret".getBytes());
+    static final String TYPE_CLAIM = "type";
+    static final String REFRESH = "refresh";
+    static final String CREDENTIALS_CLAIM = "cred";
+
+    private final JWTVerifier accessVerifier = JWT.require(ALGORITHM).build();
+    private final JWTVerifier refreshVerifier = JWT.require(ALGORITHM).withClaim(TYPE_CLAIM, REFRESH).build();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    @Value("${taskithub.security.access-token-ttl:10m}")
+    private Duration accessTokenTtl;
+
+    @Value("${taskithub.security.refresh-token-ttl:7d}")
+    private Duration refreshTokenTtl;
+
+    /**
+     * The access and refresh token for a user who has just logged in.
+     */
+    public Map<String, String> issue(UserDetails user, String issuer) {
+        // Spring has erased the password of the authenticated user, the stamp is taken from the current details
+        UserDetails current = userService.loadUserByUsername(user.getUsername());
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put("access_token", accessToken(user, issuer));
+        tokens.put("refresh_token", refreshToken(current, issuer, Instant.now().plus(refreshTokenTtl)));
+        return tokens;
+    }
+
+    /**
+     * A new access token and a new refresh token, with the same expiry, for
+     * the holder of a valid refresh token; the one presented is revoked.
+     *
+     * @throws JWTVerificationException if the refresh token is invalid,
+     *                                  expired, revoked or used already, its
+     *                                  user is gone or has changed the
+     *                                  password since
+     */
+    public Map<String, String> refresh(String refreshToken, String issuer) throws JWTVerificationException {
+        DecodedJWT decodedJWT = verifyRefreshToken(refreshToken);
+        UserDetails user;
+        try {
+            user = userService.loadUserByUsername(decodedJWT.getSubject());
+        } catch (UsernameNotFoundException e) {
+            throw new JWTVerificationException("The token's user no longer exists");
+        }
+        if (!credentialsStamp(user).equals(decodedJWT.getClaim(CREDENTIALS_CLAIM).asString())) {
+            throw new JWTVerificationException("The password has changed since the token was issued");
+        }
+        if (!tokenRevocations.revoke(decodedJWT.getId(), decodedJWT.getExpiresAtAsInstant())) {
+            throw new JWTVerificationException("The token has been used already");
+        }
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put("access_token", accessToken(user, issuer));
+        tokens.put("refresh_token", refreshToken(user, issuer, decodedJWT.getExpiresAtAsInstant()));
+        return tokens;
+    }
+
+    /**
+     * Revokes the refresh token and the access token presented with it,
+     * either may be null. An expired token is skipped, it is of no use
+     * anymore.
+     *
+     * @throws JWTVerificationException if a token is invalid
+     */
+    public void revoke(String refreshToken, String accessToken) throws JWTVerificationException {
+        if (refreshToken != null) {
+            revoke(refreshVerifier, refreshToken);
+        }
+        if (accessToken != null) {
+            revoke(accessVerifier, accessToken);
+        }
+    }
+
+    private void revoke(JWTVerifier verifier, String token) throws JWTVerificationException {
+        try {
+            DecodedJWT decodedJWT = verifier.verify(token);
+            tokenRevocations.revoke(decodedJWT.getId(), decodedJWT.getExpiresAtAsInstant());
+        } catch (TokenExpiredException e) {
+            // nothing to revoke
+        }
+    }
+
+    private DecodedJWT verifyRefreshToken(String refreshToken) throws JWTVerificationException {
+        DecodedJWT decodedJWT = refreshVerifier.verify(refreshToken);
+        if (tokenRevocations.isRevoked(decodedJWT.getId())) {
+            throw new JWTVerificationException("The token has been revoked");
+        }
+        return decodedJWT;
+    }
+
+    private String refreshToken(UserDetails user, String issuer, Instant expiresAt) {
+        return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
+                .withSubject(user.getUsername())
+                .withExpiresAt(Date.from(expiresAt))
+                .withIssuer(issuer)
+                .withClaim(TYPE_CLAIM, REFRESH)
+                .withClaim(CREDENTIALS_CLAIM, credentialsStamp(user))
+                .sign(ALGORITHM);
+    }
+
+    // part of a hash of the password hash: changes with the password, reveals nothing about it
+    private static String credentialsStamp(UserDetails user) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(user.getPassword()).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String accessToken(UserDetails user, String issuer) {
+        return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
+                .withSubject(user.getUsername())
+                .withExpiresAt(Date.from(Instant.now().plus(accessTokenTtl)))
+                .withIssuer(issuer)
+                .withClaim("roles", user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+                .sign(ALGORITHM);
+    }
+}
@@ -0,0 +1,165 @@
+package com.ironhack.taskithub.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LoginGuard
+ *
+ * Keeps POST /api/login from taking the rest of the API down with it.
+ * Password checks run on taskithub.login.verification-threads threads (the
+ * number of cores by default) with at most
+ * taskithub.login.verification-queue logins waiting for one; a login arriving
+ * at a full queue, or waiting longer than
+ * taskithub.login.verification-timeout, is answered 503 right away instead of
+ * holding a request thread.
+ *
+ * Failed logins are counted per username and per client address; after
+ * taskithub.login.max-failures-per-username or
+ * taskithub.login.max-failures-per-address failures within
+ * taskithub.login.failure-window, further attempts get 429 until the window
+ * has passed. Only failures count, so many users logging in from one office
+ * address are not slowed down. A successful login clears its username's
+ * failures.
+ */
+@Component
+@Slf4j
+public class LoginGuard {
+    private final ThreadPoolExecutor verifiers;
+    private final Duration verificationTimeout;
+    private final Duration failureWindow;
+    private final int maxFailuresPerUsername;
+    private final int maxFailuresPerAddress;
+    private final Cache<String, AtomicInteger> usernameFailures;
+    private final Cache<String, AtomicInteger> addressFailures;
+    private final Counter overloaded;
+    private final Counter throttled;
+
+    public LoginGuard(MeterRegistry meterRegistry,
+            @Value("${taskithub.login.verification-threads:0}") int threads,
+            @Value("${taskithub.login.verification-queue:64}") int queueCapacity,
+            @Value("${taskithub.login.verification-timeout:5s}") Duration verificationTimeout,
+            @Value("${taskithub.login.failure-window:15m}") Duration failureWindow,
+            @Value("${taskithub.login.max-failures-per-username:5}") int maxFailuresPerUsername,
+            @Value("${taskithub.login.max-failures-per-address:50}") int maxFailuresPerAddress) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.verifiers = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verification-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.verificationTimeout = verificationTimeout;
+        this.failureWindow = failureWindow;
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        // bounded, so a flood of made up usernames cannot grow them without limit
+        this.usernameFailures = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(failureWindow).build();
+        this.addressFailures = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(failureWindow).build();
+
+        this.overloaded = Counter.builder("taskithub.login.rejected").tag("reason", "overloaded")
+                .description("Logins turned away because password verification was saturated")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("taskithub.login.rejected").tag("reason", "throttled")
+                .description("Logins turned away after too many failures")
+                .register(meterRegistry);
+        Gauge.builder("taskithub.login.verification.queued", verifiers, executor -> executor.getQueue().size())
+                .description("Logins waiting for a password verification thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        verifiers.shutdownNow();
+    }
+
+    /**
+     * Runs the authentication on the verification pool, unless the username
+     * or address has failed too often or the pool is saturated.
+     *
+     * @throws LoginRejectedException TOO_MANY_REQUESTS or SERVICE_UNAVAILABLE
+     */
+    public Authentication authenticate(String username, String address, Supplier<Authentication> authentication)
+            throws LoginRejectedException {
+        checkFailures(usernameFailures, key(username), maxFailuresPerUsername);
+        checkFailures(addressFailures, address, maxFailuresPerAddress);
+
+        Future<Authentication> result;
+        try {
+            result = verifiers.submit(authentication::get);
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+        try {
+            Authentication authenticated = result.get(verificationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            usernameFailures.invalidate(key(username));
+            return authenticated;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Counts a failed login against its username and address.
+     */
+    public void failed(String username, String address) {
+        usernameFailures.get(key(username), key -> new AtomicInteger()).incrementAndGet();
+        addressFailures.get(address, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void checkFailures(Cache<String, AtomicInteger> failures, String key, int maxFailures) {
+        AtomicInteger count = failures.getIfPresent(key);
+        if (count != null && count.get() >= maxFailures) {
+            throttled.increment();
+            long retryAfter = failures.policy().expireAfterWrite()
+                    .flatMap(expiration -> expiration.ageOf(key))
+                    .map(age -> failureWindow.minus(age).toSeconds())
+                    .orElse(failureWindow.toSeconds());
+            throw new LoginRejectedException(HttpStatus.TOO_MANY_REQUESTS, Math.max(1, retryAfter),
+                    "Too many failed logins, try again later");
+        }
+    }
+
+    private LoginRejectedException overloaded() {
+        overloaded.increment();
+        log.warn("Password verification saturated, {} logins queued", verifiers.getQueue().size());
+        return new LoginRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1, "Too many logins, try again shortly");
+    }
+
+    private static String key(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+}
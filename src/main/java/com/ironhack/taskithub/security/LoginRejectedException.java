@@ -0,0 +1,29 @@
+package com.ironhack.taskithub.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * LoginRejectedException
+ *
+ * A login turned away before its password was checked, answered with the
+ * status and a Retry-After header instead of the usual 401.
+ */
+public class LoginRejectedException extends AuthenticationException {
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public LoginRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
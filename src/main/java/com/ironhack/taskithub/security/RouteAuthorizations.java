@@ -0,0 +1,209 @@
+package com.ironhack.taskithub.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.ironhack.taskithub.enums.Role;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * RouteAuthorizations
+ *
+ * The authorization rules of the API, compiled once into one trie of path
+ * segments per HTTP method. A request is checked with one walk down its
+ * method's trie plus an AND of two bitsets (one bit per Role), instead of
+ * trying every request matcher in turn. Like the request matchers it
+ * replaces, the first declared rule matching a request decides; requests no
+ * rule matches are open.
+ *
+ * Patterns are made of literal segments, {variable} segments (one non-empty
+ * segment) and a trailing ** (any number of segments, including none). A rule
+ * without a method covers every method, and GET rules cover HEAD as well,
+ * since Spring MVC answers HEAD with the GET handler.
+ */
+public final class RouteAuthorizations implements AuthorizationManager<RequestAuthorizationContext> {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    private static final int NO_RULE = Integer.MAX_VALUE;
+    private static final String ANY_METHOD = "*";
+    private static final Map<String, Long> AUTHORITY_BITS = new HashMap<>();
+
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITY_BITS.put(role.name(), 1L << role.ordinal());
+        }
+    }
+
+    private final List<Rule> rules;
+    private final long[] ruleAuthorities;
+    private final Map<String, Node> roots = new HashMap<>();
+
+    /**
+     * A declared rule: requests with the method (any method if null) and a
+     * path matching the pattern need one of the roles.
+     */
+    public record Rule(HttpMethod method, String pattern, List<Role> roles) {
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node variable;
+        private int rule = NO_RULE;
+        private int wildcardRule = NO_RULE;
+    }
+
+    private RouteAuthorizations(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        this.ruleAuthorities = new long[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            ruleAuthorities[i] = bitsOf(rule.roles());
+            add(rule, i);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder route(HttpMethod method, String pattern, Role... roles) {
+            rules.add(new Rule(method, pattern, List.of(roles)));
+            return this;
+        }
+
+        public Builder route(String pattern, Role... roles) {
+            rules.add(new Rule(null, pattern, List.of(roles)));
+            return this;
+        }
+
+        public RouteAuthorizations build() {
+            return new RouteAuthorizations(rules);
+        }
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        HttpServletRequest request = context.getRequest();
+        // decoded and without ;parameters, the path the controllers are mapped by
+        String path = PATH_HELPER.getPathWithinApplication(request);
+        return isGranted(request.getMethod(), path, authentication.get()) ? GRANTED : DENIED;
+    }
+
+    public boolean isGranted(String method, String path, Authentication authentication) {
+        int rule = match(method, path);
+        if (rule == NO_RULE) {
+            return true;
+        }
+        return authentication != null && authentication.isAuthenticated()
+                && (bitsOf(authentication.getAuthorities()) & ruleAuthorities[rule]) != 0;
+    }
+
+    /**
+     * The first declared rule matching the request, NO_RULE if none does.
+     */
+    private int match(String method, String path) {
+        if (!path.startsWith("/")) {
+            return NO_RULE;
+        }
+        String[] segments = segments(path);
+        int best = Math.min(match(roots.get(method), segments), match(roots.get(ANY_METHOD), segments));
+        if (method.equals(HttpMethod.HEAD.name())) {
+            best = Math.min(best, match(roots.get(HttpMethod.GET.name()), segments));
+        }
+        return best;
+    }
+
+    private static int match(Node root, String[] segments) {
+        return root == null ? NO_RULE : match(root, segments, 0);
+    }
+
+    private static int match(Node node, String[] segments, int index) {
+        int best = node.wildcardRule;
+        if (index == segments.length) {
+            return Math.min(best, node.rule);
+        }
+        String segment = segments[index];
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            best = Math.min(best, match(literal, segments, index + 1));
+        }
+        if (node.variable != null && !segment.isEmpty()) {
+            best = Math.min(best, match(node.variable, segments, index + 1));
+        }
+        return best;
+    }
+
+    // "/" has no segments, a trailing slash leaves an empty last one
+    private static String[] segments(String path) {
+        return path.length() == 1 ? new String[0] : path.substring(1).split("/", -1);
+    }
+
+    private void add(Rule rule, int index) {
+        String pattern = rule.pattern();
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Pattern must start with /: " + pattern);
+        }
+        String method = rule.method() == null ? ANY_METHOD : rule.method().name();
+        Node node = roots.computeIfAbsent(method, key -> new Node());
+        String[] segments = segments(pattern);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("** must be the last segment: " + pattern);
+                }
+                node.wildcardRule = Math.min(node.wildcardRule, index);
+                return;
+            }
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Empty segment in pattern: " + pattern);
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+            } else {
+                node = node.literals.computeIfAbsent(segment, literal -> new Node());
+            }
+        }
+        node.rule = Math.min(node.rule, index);
+    }
+
+    static long bitsOf(Collection<?> authorities) {
+        long bits = 0;
+        for (Object authority : authorities) {
+            String name = authority instanceof GrantedAuthority grantedAuthority ? grantedAuthority.getAuthority()
+                    : authority instanceof Role role ? role.name() : String.valueOf(authority);
+            Long bit = AUTHORITY_BITS.get(name);
+            if (bit != null) {
+                bits |= bit;
+            }
+        }
+        return bits;
+    }
+}
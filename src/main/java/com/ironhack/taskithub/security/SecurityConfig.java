@@ -2,7 +2,10 @@ package com.ironhack.taskithub.security;
 
 import lombok.RequiredArgsConstructor;
 
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -21,6 +24,10 @@ import com.ironhack.taskithub.security.filters.CustomAuthenticationFilter;
 import com.ironhack.taskithub.security.filters.CustomAuthorizationFilter;
 import com.ironhack.taskithub.service.UserService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static com.ironhack.taskithub.enums.Role.ADMIN;
+import static com.ironhack.taskithub.enums.Role.USER;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 /**
@@ -51,6 +58,21 @@ public class SecurityConfig {
         return PasswordEncoderFactories.createDelegatingPasswordEncoder();
     }
 
+    /**
+     * Bean definition for VerifiedTokenCache
+     *
+     * @param tokenRevocations the revoked tokens, checked on every request
+     * @param maximumSize      the number of verified tokens kept
+     * @param meterRegistry    registry for the cache hit rate
+     * @return the cache shared by all requests through CustomAuthorizationFilter
+     */
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(TokenRevocations tokenRevocations,
+            @Value("${taskithub.security.verified-tokens.maximum-size:100000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        return new VerifiedTokenCache(JwtTokens.ALGORITHM, tokenRevocations, maximumSize, meterRegistry);
+    }
+
     // Add a method to supply UserDetailsService
     @Bean
     public UserDetailsService userDetailsService(UserService userService) {
@@ -83,18 +105,59 @@ public class SecurityConfig {
     public void configure(AuthenticationManagerBuilder authManagerBuilder, UserService userService) throws Exception {
         authManagerBuilder.userDetailsService(userDetailsService(userService)).passwordEncoder(encoder());
     }
+    /**
+     * Bean definition for RouteAuthorizations, the authorities each route
+     * requires. The first rule matching a request decides, any other
+     * endpoint DOESN'T require authentication.
+     *
+     * @return the rules compiled into a lookup table
+     */
+    @Bean
+    public static RouteAuthorizations routeAuthorizations() {
+        return RouteAuthorizations.builder()
+                .route(HttpMethod.POST, "/users", ADMIN)
+                .route(HttpMethod.GET, "/users/username/{username}", ADMIN, USER)
+                .route(HttpMethod.GET, "/users/{id}", ADMIN, USER)
+                .route(HttpMethod.GET, "/users", ADMIN, USER)
+                .route(HttpMethod.PUT, "/users/{id}", ADMIN, USER)
+                .route(HttpMethod.DELETE, "/users/{id}", ADMIN)
+                .route(HttpMethod.GET, "/users/delete-jobs/{jobId}", ADMIN)
+
+                .route(HttpMethod.GET, "/departments/**", ADMIN)
+                .route(HttpMethod.GET, "/departments", ADMIN)
+                .route(HttpMethod.POST, "/departments", ADMIN)
+                .route(HttpMethod.PUT, "/departments/{id}", ADMIN)
+                .route(HttpMethod.DELETE, "/departments/{id}", ADMIN)
+
+                .route(HttpMethod.GET, "/tasks/**", ADMIN, USER)
+                .route(HttpMethod.POST, "/tasks", ADMIN, USER)
+                .route(HttpMethod.POST, "/tasks/import", ADMIN)
+                .route(HttpMethod.POST, "/tasks/search/reindex", ADMIN)
+                .route(HttpMethod.PUT, "/tasks/{id}", ADMIN, USER)
+                .route(HttpMethod.PATCH, "/tasks/bulk", ADMIN, USER)
+                .route(HttpMethod.DELETE, "/tasks/{id}", ADMIN, USER)
+
+                .route("/actuator/metrics/**", ADMIN)
+                .build();
+    }
+
     /**
      * Bean definition for SecurityFilterChain
      *
-     * @param http the instance of HttpSecurity
+     * @param http                the instance of HttpSecurity
+     * @param verifiedTokenCache  the cache of verified access tokens
+     * @param loginGuard          the password verification pool and login throttling
+     * @param jwtTokens           issues the tokens handed out on login
+     * @param routeAuthorizations the authorities required per route
      * @return an instance of the SecurityFilterChain
      * @throws Exception if there is an issue building the SecurityFilterChain
      */
     @Bean
-    protected SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    protected SecurityFilterChain filterChain(HttpSecurity http, VerifiedTokenCache verifiedTokenCache,
+            LoginGuard loginGuard, JwtTokens jwtTokens, RouteAuthorizations routeAuthorizations) throws Exception {
         // CustomAuthenticationFilter instance created
         CustomAuthenticationFilter customAuthenticationFilter = new CustomAuthenticationFilter(
-                authManagerBuilder.getOrBuild());
+                authManagerBuilder.getOrBuild(), loginGuard, jwtTokens);
 
         // set the URL that the filter should process
         customAuthenticationFilter.setFilterProcessesUrl("/api/login");
@@ -108,33 +171,18 @@ public class SecurityConfig {
 
         // set up authorization for different request matchers and user roles
         http.authorizeHttpRequests((requests) -> requests
+                // completion of a request that was authorized when it started (GET /tasks/events)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
-                .requestMatchers(HttpMethod.POST, "/users").hasAnyAuthority("ADMIN")
-                .requestMatchers(HttpMethod.GET, "/users/username/{username}").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.GET, "/users/{id}").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.GET, "/users").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.PUT, "/users/{id}").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.DELETE, "/users/{id}").hasAnyAuthority("ADMIN")
-
-                .requestMatchers(HttpMethod.GET, "/departments/**").hasAnyAuthority("ADMIN")
-                .requestMatchers(HttpMethod.GET, "/departments").hasAnyAuthority("ADMIN")
-                .requestMatchers(HttpMethod.POST, "/departments").hasAnyAuthority("ADMIN")
-                .requestMatchers(HttpMethod.PUT, "/departments/{id}").hasAnyAuthority("ADMIN")
-                .requestMatchers(HttpMethod.DELETE, "/departments/{id}").hasAnyAuthority("ADMIN")
-
-                .requestMatchers(HttpMethod.GET, "/tasks/**").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.POST, "/tasks").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.PUT, "/tasks/{id}").hasAnyAuthority("ADMIN", "USER")
-                .requestMatchers(HttpMethod.DELETE, "/tasks/{id}").hasAnyAuthority("ADMIN", "USER")
-
-                .anyRequest().permitAll()); // any other endpoints DON'T require authentication
+                // every other request is looked up in the route table, see routeAuthorizations()
+                .anyRequest().access(routeAuthorizations));
 
         // add the custom authentication filter to the http security object
         http.addFilter(customAuthenticationFilter);
 
         // Add the custom authorization filter before the standard authentication
         // filter.
-        http.addFilterBefore(new CustomAuthorizationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new CustomAuthorizationFilter(verifiedTokenCache), UsernamePasswordAuthenticationFilter.class);
 
         // Build the security filter chain to be returned.
         return http.build();
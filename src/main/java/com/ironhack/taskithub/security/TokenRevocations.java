@@ -0,0 +1,201 @@
+package com.ironhack.taskithub.security;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.datasource.DbTime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TokenRevocations
+ *
+ * The ids (jti) of tokens revoked before their expiry, checked on every
+ * request without a database round trip. They are held in a bloom filter,
+ * which answers "not revoked" for almost every token after a few bit tests,
+ * backed by an exact set for the tokens the filter cannot rule out.
+ *
+ * The token_revocation table is the source of truth: this node's revocations
+ * apply right away, everything else (other nodes' revocations, expiry) is
+ * picked up by rebuilding from the table every
+ * taskithub.security.revocations.refresh-interval-ms. Revocations of expired
+ * tokens are pruned then too.
+ */
+@Component
+@Slf4j
+public class TokenRevocations {
+    private static final String INSERT = "insert into token_revocation (jti, expires_at, revoked_at) values (?, ?, ?)";
+    private static final String SELECT_ACTIVE = "select jti from token_revocation where expires_at > ?";
+    private static final String PRUNE = "delete from token_revocation where expires_at <= ?";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+    // revocations made here while a rebuild is reading the table, added to its result
+    private List<String> revokedDuringRebuild;
+    private Counter bloomFalsePositives;
+
+    @PostConstruct
+    void open() {
+        bloomFalsePositives = Counter.builder("taskithub.tokens.revocation.false-positives")
+                .description("Revocation checks the bloom filter could not rule out for a token that is not revoked")
+                .register(meterRegistry);
+        Gauge.builder("taskithub.tokens.revoked", this, revocations -> revocations.snapshot.size())
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        if (!current.mightContain(jti)) {
+            return false;
+        }
+        if (current.contains(jti)) {
+            return true;
+        }
+        bloomFalsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes the token until it expires, on this node right away and on
+     * the others with their next rebuild. The row's primary key makes this a
+     * claim: of any number of calls for one token, on any node, exactly one
+     * gets true back, the others find it revoked already.
+     *
+     * @return whether this call revoked the token
+     */
+    public boolean revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return false;
+        }
+        boolean revoked = true;
+        try {
+            jdbcTemplate.update(INSERT, jti, Timestamp.from(expiresAt), DbTime.timestamp());
+        } catch (DuplicateKeyException e) {
+            log.debug("Token {} was revoked already", jti);
+            revoked = false;
+        }
+        synchronized (this) {
+            snapshot.add(jti);
+            if (revokedDuringRebuild != null) {
+                revokedDuringRebuild.add(jti);
+            }
+        }
+        return revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${taskithub.security.revocations.refresh-interval-ms:30000}")
+    public void rebuild() {
+        synchronized (this) {
+            revokedDuringRebuild = new ArrayList<>();
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<String> active;
+        try {
+            jdbcTemplate.update(PRUNE, now);
+            active = jdbcTemplate.queryForList(SELECT_ACTIVE, String.class, now);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                revokedDuringRebuild = null;
+            }
+            log.error("Reloading token revocations failed, keeping the previous ones", e);
+            return;
+        }
+        synchronized (this) {
+            List<String> revoked = new ArrayList<>(active);
+            revoked.addAll(revokedDuringRebuild);
+            snapshot = new Snapshot(revoked);
+            revokedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * A bloom filter sized for the revocations it was built from, with
+     * k bit positions per id derived from one 64-bit FNV-1a hash, and the
+     * exact set behind it. Revocations added later may push the filter past
+     * its false positive rate until the next rebuild, never past correctness.
+     */
+    private static final class Snapshot {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+
+        private Snapshot(Collection<String> jtis) {
+            int expected = Math.max(1024, jtis.size() * 2);
+            long optimalBits = (long) Math.ceil(-expected * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, optimalBits);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+            jtis.forEach(this::add);
+        }
+
+        private void add(String jti) {
+            long hash = fnv1a(jti);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                bits.getAndUpdate(bit >>> 6, word -> word | mask);
+            }
+            exact.add(jti);
+        }
+
+        private boolean mightContain(String jti) {
+            long hash = fnv1a(jti);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean contains(String jti) {
+            return exact.contains(jti);
+        }
+
+        private int size() {
+            return exact.size();
+        }
+
+        private static long fnv1a(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ironhack.taskithub.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * VerifiedTokenCache
+ *
+ * Verifies access tokens with one shared verifier and remembers the
+ * Authentication built from every valid token until the token expires, so a
+ * client sending the same token again costs a SHA-256 and a lookup instead of
+ * an HMAC check and a decode. Entries are keyed by the token's hash, the
+ * tokens themselves are not kept. Invalid tokens are not cached.
+ *
+ * Only the cached authentication saves work, a revoked token is refused on
+ * its next request.
+ *
+ * Hits, misses and evictions are published as the cache.* metrics tagged
+ * cache=verified-tokens.
+ */
+public class VerifiedTokenCache {
+    private final JWTVerifier verifier;
+    private final TokenRevocations tokenRevocations;
+    private final Cache<String, Entry> authentications;
+
+    private record Entry(Authentication authentication, String jti, long expiresAtMillis) {
+    }
+
+    public VerifiedTokenCache(Algorithm algorithm, TokenRevocations tokenRevocations, long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.verifier = JWT.require(algorithm).build();
+        this.tokenRevocations = tokenRevocations;
+        this.authentications = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0,
+                                entry.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, authentications, "verified-tokens");
+    }
+
+    /**
+     * Returns the authentication carried by the token, verifying it unless
+     * the same token was verified before. Revocation is checked every time.
+     *
+     * @throws JWTVerificationException if the token is invalid, expired,
+     *                                  revoked or a refresh token
+     */
+    public Authentication authenticate(String token) throws JWTVerificationException {
+        String key = hash(token);
+        Entry entry = authentications.getIfPresent(key);
+        // the cache drops entries lazily, a token may outlive its exp by a moment
+        if (entry != null && entry.expiresAtMillis() > System.currentTimeMillis()) {
+            checkNotRevoked(entry.jti());
+            return entry.authentication();
+        }
+
+        DecodedJWT decodedJWT = verifier.verify(token);
+        if (JwtTokens.REFRESH.equals(decodedJWT.getClaim(JwtTokens.TYPE_CLAIM).asString())) {
+            throw new JWTVerificationException("A refresh token is no access token");
+        }
+        checkNotRevoked(decodedJWT.getId());
+        String[] roles = decodedJWT.getClaim("roles").asArray(String.class);
+        List<SimpleGrantedAuthority> authorities = roles == null ? List.of()
+                : Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(decodedJWT.getSubject(), null,
+                authorities);
+        if (decodedJWT.getExpiresAt() != null) {
+            authentications.put(key, new Entry(authentication, decodedJWT.getId(),
+                    decodedJWT.getExpiresAt().getTime()));
+        }
+        return authentication;
+    }
+
+    private void checkNotRevoked(String jti) throws JWTVerificationException {
+        if (tokenRevocations.isRevoked(jti)) {
+            throw new JWTVerificationException("The token has been revoked");
+        }
+    }
+
+    long size() {
+        authentications.cleanUp();
+        return authentications.estimatedSize();
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,24 +1,23 @@
 package com.ironhack.taskithub.security.filters;
 
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.io.IOException;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.security.JwtTokens;
+import com.ironhack.taskithub.security.LoginGuard;
+import com.ironhack.taskithub.security.LoginRejectedException;
 import com.ironhack.taskithub.security.dto.LoginRequest;
 
 import jakarta.servlet.FilterChain;
@@ -32,15 +31,24 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j // (Simple Logging Facade for Java) offers logging API which is more professional that simply sout
 public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final AuthenticationManager authenticationManager;
+    private final LoginGuard loginGuard;
+    private final JwtTokens jwtTokens;
 
     /**
      * Constructor for CustomAuthenticationFilter
      *
      * @param authenticationManager
+     * @param loginGuard            runs the password checks and throttles failing logins
+     * @param jwtTokens             issues the access and refresh tokens
      */
-    public CustomAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public CustomAuthenticationFilter(AuthenticationManager authenticationManager, LoginGuard loginGuard,
+            JwtTokens jwtTokens) {
         this.authenticationManager = authenticationManager;
+        this.loginGuard = loginGuard;
+        this.jwtTokens = jwtTokens;
     }
 
     /**
@@ -54,8 +62,7 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
     @Override
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) throws AuthenticationException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            LoginRequest loginRequest = mapper.readValue(request.getInputStream(), LoginRequest.class);
+            LoginRequest loginRequest = OBJECT_MAPPER.readValue(request.getInputStream(), LoginRequest.class);
 
             // Creating an Authentication token with given username and password
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
@@ -66,8 +73,17 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
             log.info("Username is: {}", loginRequest.getUsername());
             log.info("Password is: {}", loginRequest.getPassword());
 
-            // Attempting to authenticate the user with the given credentials
-            return authenticationManager.authenticate(authenticationToken);
+            // Attempting to authenticate the user with the given credentials on the password verification pool
+            String address = request.getRemoteAddr();
+            try {
+                return loginGuard.authenticate(loginRequest.getUsername(), address,
+                        () -> authenticationManager.authenticate(authenticationToken));
+            } catch (LoginRejectedException e) {
+                throw e;
+            } catch (AuthenticationException e) {
+                loginGuard.failed(loginRequest.getUsername(), address);
+                throw e;
+            }
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -89,27 +105,38 @@ public class CustomAuthenticationFilter extends UsernamePasswordAuthenticationFi
         // Cast the authentication principal to spring security User object
         User user = (User) authentication.getPrincipal();
 
-        // Creating an HMAC256 (Hash-based Message Authentication Code using SHA-512 algorithm)
-        // encoded JWT with secret key
-        Algorithm algorithm = Algorithm.HMAC256("secret".getBytes());
-
-        // Adding user details and roles to the token
-        String access_token = JWT.create()
-                .withSubject(user.getUsername())
-                .withExpiresAt(new Date(System.currentTimeMillis() + 10 * 60 * 1000))
-                .withIssuer(request.getRequestURL().toString())
-                .withClaim("roles", user.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()))
-                .sign(algorithm);
-
-        // Creating a map with the generated token
-        Map<String, String> tokens = new HashMap<>();
-        tokens.put("access_token", access_token);
+        // Creating the access token (user details and roles) and the refresh token, both HMAC256
+        // (Hash-based Message Authentication Code using SHA-256 algorithm) signed with the secret key
+        Map<String, String> tokens = jwtTokens.issue(user, request.getRequestURL().toString());
 
         // Setting the response type to application/json
         response.setContentType(APPLICATION_JSON_VALUE);
 
         // Writing the token as response
-        new ObjectMapper().writeValue(response.getOutputStream(), tokens);
+        OBJECT_MAPPER.writeValue(response.getOutputStream(), tokens);
+    }
+
+    /**
+     * Method is called if the authentication failed, a login rejected by the
+     * LoginGuard gets its status and a Retry-After header instead of 401
+     *
+     * @param request  HttpServletRequest
+     * @param response HttpServletResponse
+     * @param failed   AuthenticationException
+     * @throws IOException
+     * @throws ServletException
+     */
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response, AuthenticationException failed) throws IOException, ServletException {
+        if (!(failed instanceof LoginRejectedException rejected)) {
+            super.unsuccessfulAuthentication(request, response, failed);
+            return;
+        }
+        SecurityContextHolder.clearContext();
+        response.setStatus(rejected.getStatus().value());
+        response.setHeader(RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()));
+        response.setContentType(APPLICATION_JSON_VALUE);
+        OBJECT_MAPPER.writeValue(response.getOutputStream(), Map.of("error_message", rejected.getMessage()));
     }
 
 }
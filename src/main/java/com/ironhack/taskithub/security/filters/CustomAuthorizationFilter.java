@@ -1,27 +1,18 @@
 package com.ironhack.taskithub.security.filters;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
-import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.security.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
 
-import static java.util.Arrays.stream;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON_VALUE;
@@ -32,6 +23,18 @@ import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON_VALUE;
  */
 @Slf4j // (Simple Logging Facade for Java) offers logging API which is more professional that simply sout
 public class CustomAuthorizationFilter extends OncePerRequestFilter {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Constructor for CustomAuthorizationFilter
+     *
+     * @param verifiedTokenCache verifies the tokens and remembers the valid ones
+     */
+    public CustomAuthorizationFilter(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
 
     /**
      * The method doFilterInternal will handle the authorization of a user to access the API endpoints.
@@ -44,8 +47,11 @@ public class CustomAuthorizationFilter extends OncePerRequestFilter {
      */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        // If the request is for the API Login endpoint, pass the request to the next filter in the chain
-        if (request.getServletPath().equals("/api/login")) {
+        // If the request is for the API Login, token refresh or logout endpoint, pass the request to the next filter
+        // in the chain (a client refreshing or logging out may still send its expired access token, the endpoints
+        // verify the tokens they are given themselves)
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/login") || path.equals("/api/token/refresh") || path.equals("/api/logout")) {
             filterChain.doFilter(request, response);
         } else {
             // If the request is not for the API Login endpoint, check if the request has the authorization header
@@ -56,24 +62,10 @@ public class CustomAuthorizationFilter extends OncePerRequestFilter {
                     // If the authorization header is present, get the token
                     //String token = authorizationHeader.substring("Bearer ".length());
                     String token = authorizationHeader.substring("".length());
-                    Algorithm algorithm = Algorithm.HMAC256("secret".getBytes());
-                    JWTVerifier verifier = JWT.require(algorithm).build();
-
-                    // Verify the token using HMAC256
-                    DecodedJWT decodedJWT = verifier.verify(token);
-
-                    // Obtain user's name and roles from token
-                    String username = decodedJWT.getSubject();
-                    String[] roles = decodedJWT.getClaim("roles").asArray(String.class);
-                    Collection<SimpleGrantedAuthority> authorities = new ArrayList<>();
-                    stream(roles).forEach(role -> {
-                        authorities.add(new SimpleGrantedAuthority(role));
-                    });
 
-                    // Create a new authentication token with the user's details and authorities and set it in the Security Context
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(username, null, authorities);
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                    // Verify the token using HMAC256 (unless it was verified before) and set the user's
+                    // name and roles from it in the Security Context
+                    SecurityContextHolder.getContext().setAuthentication(verifiedTokenCache.authenticate(token));
 
                     // Pass the request to the next filter in the chain
                     filterChain.doFilter(request, response);
@@ -84,10 +76,9 @@ public class CustomAuthorizationFilter extends OncePerRequestFilter {
                     // If an error occurs during the authorization process, set the error message in the response header and return a Forbidden error status
                     response.setHeader("error", exception.getMessage());
                     response.setStatus(FORBIDDEN.value());
-                    Map<String, String> error = new HashMap<>();
-                    error.put("error_message", exception.getMessage());
                     response.setContentType(APPLICATION_JSON_VALUE);
-                    new ObjectMapper().writeValue(response.getOutputStream(), error);
+                    OBJECT_MAPPER.writeValue(response.getOutputStream(),
+                            Collections.singletonMap("error_message", exception.getMessage()));
                 }
 
             } else {
@@ -0,0 +1,19 @@
+package com.ironhack.taskithub.service;
+
+import java.util.List;
+
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+
+/**
+ * ChangeEvent
+ *
+ * One row of the change outbox. It names what changed, not the new state:
+ * listeners read that themselves, so a late or repeated delivery still leaves
+ * them current. departmentIds and userIds hold what the current state no
+ * longer shows, i.e. the department and assignees a task was taken from, or
+ * had when it was deleted.
+ */
+public record ChangeEvent(Long id, ChangeEntity entity, Long entityId, ChangeType type, List<Long> departmentIds,
+        List<Long> userIds) {
+}
@@ -0,0 +1,15 @@
+package com.ironhack.taskithub.service;
+
+import java.util.List;
+
+/**
+ * ChangeListener
+ *
+ * Reacts to committed changes, handed over in batches by ChangeOutboxRelay.
+ * Delivery is at least once: a batch is repeated if any listener fails on
+ * it, so handling an event twice must do no harm.
+ */
+public interface ChangeListener {
+
+    void onChanges(List<ChangeEvent> events);
+}
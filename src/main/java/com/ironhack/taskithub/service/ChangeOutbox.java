@@ -0,0 +1,81 @@
+package com.ironhack.taskithub.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+
+/**
+ * ChangeOutbox
+ *
+ * Records changes in the change_outbox table, in the transaction of the
+ * change itself: a change is recorded if and only if it commits, at the price
+ * of one insert. The ChangeOutboxRelay of every node hands the rows to its
+ * listeners after the commit.
+ */
+@Component
+public class ChangeOutbox {
+    private static final String INSERT = "insert into change_outbox "
+            + "(entity, entity_id, change_type, department_ids, user_ids, created_at) values (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeOutboxRelay relay;
+
+    public void record(ChangeEntity entity, Long entityId, ChangeType type) {
+        record(entity, entityId, type, List.of(), List.of());
+    }
+
+    /**
+     * @param departmentIds departments the entity left, see ChangeEvent
+     * @param userIds       users the entity was taken from, see ChangeEvent
+     */
+    public void record(ChangeEntity entity, Long entityId, ChangeType type, Collection<Long> departmentIds,
+            Collection<Long> userIds) {
+        jdbcTemplate.update(INSERT, entity.name(), entityId, type.name(), join(departmentIds), join(userIds),
+                Timestamp.valueOf(LocalDateTime.now()));
+        AfterCommit.runOnce(relay, relay::nudge);
+    }
+
+    /**
+     * One JDBC batch for many entities of the same kind.
+     *
+     * @param userIds per entity id, users it was taken from; entities without
+     *                an entry are recorded without
+     */
+    public void recordAll(ChangeEntity entity, Collection<Long> entityIds, ChangeType type,
+            Map<Long, ? extends Collection<Long>> userIds) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, entityIds, entityIds.size(), (ps, entityId) -> {
+            ps.setString(1, entity.name());
+            ps.setLong(2, entityId);
+            ps.setString(3, type.name());
+            ps.setString(4, null);
+            Collection<Long> entityUserIds = userIds.get(entityId);
+            ps.setString(5, entityUserIds != null ? join(entityUserIds) : null);
+            ps.setTimestamp(6, now);
+        });
+        AfterCommit.runOnce(relay, relay::nudge);
+    }
+
+    private static String join(Collection<Long> ids) {
+        String joined = ids.stream().filter(Objects::nonNull).distinct().map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return joined.isEmpty() ? null : joined;
+    }
+}
@@ -0,0 +1,262 @@
+package com.ironhack.taskithub.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.dto.AggregatedIds;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ChangeOutboxRelay
+ *
+ * Hands the rows of the change outbox to all ChangeListener beans of this
+ * node, in id order and taskithub.outbox.batch-size rows at a time. The
+ * listeners keep state per node (the search index, the open event streams),
+ * so every node reads every row: each relay keeps its own position, starting
+ * at the newest row when the node starts (the listeners build their state
+ * from the database then), and rows are pruned once they are older than
+ * taskithub.outbox.retention instead of being deleted on delivery. A commit
+ * that recorded a change wakes the relay of its own node, the other nodes
+ * see it on their next poll.
+ *
+ * An id is taken when a row is inserted, but the row only shows once its
+ * transaction commits, so a row can turn up behind the position. Ids passed
+ * over are looked up again on every drain until
+ * taskithub.outbox.gap-timeout, which has to cover the longest write
+ * transaction, has passed.
+ *
+ * When a listener fails, the batch is retried one row at a time so a single
+ * bad row only holds up itself. Failing rows are retried on the next drains
+ * and dropped after taskithub.outbox.max-attempts.
+ */
+@Component
+@Slf4j
+public class ChangeOutboxRelay {
+    private static final String COLUMNS = "select id, entity, entity_id, change_type, department_ids, user_ids "
+            + "from change_outbox ";
+    private static final String SELECT_NEXT = COLUMNS + "where id > ? order by id limit ?";
+    private static final String SELECT_BY_IDS = COLUMNS + "where id in (%s) order by id";
+    private static final String SELECT_POSITION = "select coalesce(max(id), 0) from change_outbox";
+    private static final String PRUNE = "delete from change_outbox where created_at < ?";
+    // ids passed over that are looked up again, the ones closest to the position are kept
+    private static final int MAX_GAPS = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private List<ChangeListener> listeners;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${taskithub.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${taskithub.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${taskithub.outbox.gap-timeout:30s}")
+    private Duration gapTimeout;
+
+    @Value("${taskithub.outbox.retention:10m}")
+    private Duration retention;
+
+    private final ExecutorService relayThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean pending = new AtomicBoolean();
+    // a lock rather than a monitor, so a virtual thread calling drain() does not pin its carrier on the database
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // guarded by drainLock: the last id read, ids passed over (until when they are looked for) and failing ids
+    private long position;
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
+    private Counter delivered;
+    private Counter failures;
+
+    @PostConstruct
+    void open() {
+        position = jdbcTemplate.queryForObject(SELECT_POSITION, Long.class);
+        delivered = Counter.builder("taskithub.outbox.delivered")
+                .description("Changes handed to all listeners")
+                .register(meterRegistry);
+        failures = Counter.builder("taskithub.outbox.failures")
+                .description("Changes a listener failed on")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        relayThread.shutdownNow();
+    }
+
+    /**
+     * Drains the outbox on the relay thread; calls made while a drain is
+     * waiting to start are folded into it.
+     */
+    void nudge() {
+        if (pending.compareAndSet(false, true)) {
+            relayThread.execute(() -> {
+                pending.set(false);
+                drain();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${taskithub.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        nudge();
+    }
+
+    /**
+     * Deletes the rows older than taskithub.outbox.retention, every node has
+     * read them by then.
+     */
+    @Scheduled(fixedDelayString = "${taskithub.outbox.prune-interval-ms:60000}")
+    public void prune() {
+        jdbcTemplate.update(PRUNE, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+    }
+
+    /**
+     * Delivers the changes recorded since the last drain, ids passed over
+     * that have shown up since and the changes a listener failed on before.
+     *
+     * @return the number of changes delivered
+     */
+    public int drain() {
+        drainLock.lock();
+        try {
+            int count = redeliver();
+            List<ChangeEvent> batch;
+            do {
+                batch = next(position, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                trackGaps(batch);
+                position = batch.get(batch.size() - 1).id();
+                count += deliverBatch(batch);
+            } while (batch.size() == batchSize);
+            return count;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private int redeliver() {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(lookedForUntil -> lookedForUntil < now);
+        Set<Long> ids = new TreeSet<>(gaps.keySet());
+        ids.addAll(failedAttempts.keySet());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<ChangeEvent> events = jdbcTemplate.query(
+                String.format(SELECT_BY_IDS, String.join(",", Collections.nCopies(ids.size(), "?"))),
+                ChangeOutboxRelay::changeEvent, ids.toArray());
+        Set<Long> found = events.stream().map(ChangeEvent::id).collect(Collectors.toSet());
+        gaps.keySet().removeAll(found);
+        // a failing row pruned meanwhile is given up
+        failedAttempts.keySet().retainAll(found);
+        return events.isEmpty() ? 0 : deliverBatch(events);
+    }
+
+    private void trackGaps(List<ChangeEvent> batch) {
+        long lookedForUntil = System.currentTimeMillis() + gapTimeout.toMillis();
+        long expected = position + 1;
+        for (ChangeEvent event : batch) {
+            for (long id = Math.max(expected, event.id() - MAX_GAPS); id < event.id(); id++) {
+                gaps.put(id, lookedForUntil);
+            }
+            expected = event.id() + 1;
+        }
+        while (gaps.size() > MAX_GAPS) {
+            gaps.pollFirstEntry();
+        }
+    }
+
+    private int deliverBatch(List<ChangeEvent> batch) {
+        try {
+            deliver(batch);
+        } catch (RuntimeException e) {
+            log.warn("Change listener failed on a batch of {}, retrying it row by row", batch.size(), e);
+            return deliverOneByOne(batch);
+        }
+        batch.forEach(event -> failedAttempts.remove(event.id()));
+        delivered.increment(batch.size());
+        return batch.size();
+    }
+
+    private int deliverOneByOne(List<ChangeEvent> batch) {
+        int count = 0;
+        for (ChangeEvent event : batch) {
+            try {
+                deliver(List.of(event));
+                failedAttempts.remove(event.id());
+                count++;
+            } catch (RuntimeException e) {
+                log.error("Change listener failed on {}", event, e);
+                failures.increment();
+                failed(event);
+            }
+        }
+        delivered.increment(count);
+        return count;
+    }
+
+    // after maxAttempts the change is given up, so it cannot come back forever
+    private void failed(ChangeEvent event) {
+        int attempts = failedAttempts.merge(event.id(), 1, Integer::sum);
+        if (attempts >= maxAttempts) {
+            log.error("Dropping change {} after {} failed deliveries", event, attempts);
+            failedAttempts.remove(event.id());
+        }
+    }
+
+    private List<ChangeEvent> next(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_NEXT, ChangeOutboxRelay::changeEvent, afterId, limit);
+    }
+
+    private static ChangeEvent changeEvent(ResultSet rs, int row) throws SQLException {
+        return new ChangeEvent(rs.getLong(1), ChangeEntity.valueOf(rs.getString(2)), rs.getLong(3),
+                ChangeType.valueOf(rs.getString(4)), AggregatedIds.parse(rs.getString(5)),
+                AggregatedIds.parse(rs.getString(6)));
+    }
+
+    private void deliver(List<ChangeEvent> batch) {
+        for (ChangeListener listener : listeners) {
+            listener.onChanges(batch);
+        }
+    }
+}
@@ -1,28 +1,39 @@
 package com.ironhack.taskithub.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.ironhack.taskithub.dto.CursorPageDTO;
 import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
 import com.ironhack.taskithub.dto.DepartmentSummaryDTO;
-
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.TaskRepository.DepartmentTaskCount;
 import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.repository.UserRepository.DepartmentUserCount;
 
 /**
  * DepartmentService
  */
 @Service
 public class DepartmentService {
+    public static final int MAX_ID_PAGE_SIZE = 1000;
+
     @Autowired
     private DepartmentRepository departmentRepository;
 
@@ -32,33 +43,37 @@ public class DepartmentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ReferenceResolver referenceResolver;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Transactional
     public Department createDepartmentFromDTO(DepartmentDTO departmentDTO) {
         Department department = departmentDTO.toDepartment();
         return createDepartment(department, departmentDTO.getTaskIds(), departmentDTO.getUserIds());
     }
 
+    @Transactional
     public Department createDepartment(Department department, List<Long> taskIds, List<Long> userIds)
             throws ResponseStatusException {
-        if (departmentRepository.existsByName(department.getName())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Department already exists");
-        }
         if (userIds != null) {
-            List<User> users = userIds.stream()
-                    .map(userId -> userRepository.findById(userId).orElse(null))
-                    .filter(user -> user != null)
-                    .collect(Collectors.toList());
-            department.setUsers(users);
+            department.setUsers(referenceResolver.resolveExisting(userRepository, userIds));
         }
 
         if (taskIds != null) {
-            List<Task> tasks = taskIds.stream()
-                    .map(taskId -> taskRepository.findById(taskId).orElse(null))
-                    .filter(task -> task != null)
-                    .collect(Collectors.toList());
-            department.setTasks(tasks);
+            department.setTasks(referenceResolver.resolveExisting(taskRepository, taskIds));
         }
 
-        return departmentRepository.save(department);
+        // the insert runs right away (identity key), a taken name fails it
+        Department savedDepartment = UniqueConstraints.write(() -> departmentRepository.save(department),
+                UniqueConstraints.DEPARTMENT_NAME, "Department already exists");
+        changeOutbox.record(ChangeEntity.DEPARTMENT, savedDepartment.getId(), ChangeType.CREATED);
+        return savedDepartment;
     }
 
     public List<Department> getAllDepartments() {
@@ -66,59 +81,156 @@ public class DepartmentService {
     }
 
     public Department getDepartmentById(Long id) throws ResponseStatusException {
-        if (!departmentRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+        return departmentRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found"));
+    }
+
+    /**
+     * All departments with user and task counts. Three queries in total, none of
+     * them loads a task or user, all in one read-only transaction. Counts of a
+     * department the first query did not see (created meanwhile, where the
+     * isolation level gives no snapshot) are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<DepartmentOverviewDTO> getDepartmentOverviews() {
+        List<DepartmentOverviewDTO> overviews = departmentRepository.findAllOverviews();
+        Map<Long, DepartmentOverviewDTO> byId = overviews.stream()
+                .collect(Collectors.toMap(DepartmentOverviewDTO::getId, Function.identity()));
+        for (DepartmentUserCount count : userRepository.countByDepartment()) {
+            DepartmentOverviewDTO overview = byId.get(count.getDepartmentId());
+            if (overview != null) {
+                overview.setUserCount(count.getUsers());
+            }
+        }
+        for (DepartmentTaskCount count : taskRepository.countByDepartmentStatusAndPriority()) {
+            DepartmentOverviewDTO overview = byId.get(count.getDepartmentId());
+            if (overview != null) {
+                addTaskCount(overview, count);
+            }
+        }
+        return overviews;
+    }
+
+    @Transactional(readOnly = true)
+    public DepartmentOverviewDTO getDepartmentOverview(Long id) throws ResponseStatusException {
+        DepartmentOverviewDTO overview = departmentRepository.findOverviewById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found"));
+        overview.setUserCount(userRepository.countByDepartmentId(id));
+        for (DepartmentTaskCount count : taskRepository.countByStatusAndPriorityForDepartment(id)) {
+            addTaskCount(overview, count);
         }
-        return departmentRepository.findById(id).orElse(null);
+        return overview;
+    }
+
+    public CursorPageDTO<Long> getDepartmentTaskIds(Long id, String cursor, int limit)
+            throws ResponseStatusException {
+        return pageIds(id, cursor, limit, (afterId, max) -> taskRepository.findIdsByDepartmentId(id, afterId, max));
+    }
+
+    public CursorPageDTO<Long> getDepartmentUserIds(Long id, String cursor, int limit)
+            throws ResponseStatusException {
+        return pageIds(id, cursor, limit, (afterId, max) -> userRepository.findIdsByDepartmentId(id, afterId, max));
     }
 
-    public Department updateDepartmentFromDTO(Long id, DepartmentDTO departmentDTO) {
+    @Transactional
+    public Department updateDepartmentFromDTO(Long id, DepartmentDTO departmentDTO, Long expectedVersion) {
         Department department = departmentDTO.toDepartment();
-        return updateDepartment(id, department, departmentDTO.getTaskIds(), departmentDTO.getUserIds());
+        return updateDepartment(id, department, departmentDTO.getTaskIds(), departmentDTO.getUserIds(),
+                expectedVersion);
     }
 
+    @Transactional
     public Department updateDepartment(Long id, Department updatedDepartment, List<Long> taskIds, List<Long> userIds)
             throws ResponseStatusException {
+        return updateDepartment(id, updatedDepartment, taskIds, userIds, null);
+    }
+
+    /**
+     * @param expectedVersion the version the change is based on, null to overwrite whatever is stored
+     * @throws ResponseStatusException PRECONDITION_FAILED if the department has changed since that version
+     */
+    @Transactional
+    public Department updateDepartment(Long id, Department updatedDepartment, List<Long> taskIds, List<Long> userIds,
+            Long expectedVersion) throws ResponseStatusException {
         Department existingDepartment = departmentRepository.findById(id).orElse(null);
         if (existingDepartment == null) {
             return null;
         }
-
-        if (departmentRepository.existsByName(updatedDepartment.getName())
-                && !existingDepartment.getName().equals(updatedDepartment.getName())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Department already exists");
-        }
+        OptimisticLocking.checkVersion(existingDepartment, expectedVersion, "Department");
 
         if (updatedDepartment.getName() != null) {
             existingDepartment.setName(updatedDepartment.getName());
         }
 
         if (userIds != null) {
-            List<User> users = userIds.stream()
-                    .map(userId -> userRepository.findById(userId).orElse(null))
-                    .filter(user -> user != null)
-                    .collect(Collectors.toList());
-            existingDepartment.setUsers(users);
+            existingDepartment.setUsers(referenceResolver.resolveExisting(userRepository, userIds));
         }
 
         if (taskIds != null) {
-            List<Task> tasks = taskIds.stream()
-                    .map(taskId -> taskRepository.findById(taskId).orElse(null))
-                    .filter(task -> task != null)
-                    .collect(Collectors.toList());
-            existingDepartment.setTasks(tasks);
+            existingDepartment.setTasks(referenceResolver.resolveExisting(taskRepository, taskIds));
         }
 
-        return departmentRepository.save(existingDepartment);
+        Department savedDepartment = UniqueConstraints.write(() -> {
+            Department saved = departmentRepository.save(existingDepartment);
+            departmentRepository.flush();
+            return saved;
+        }, UniqueConstraints.DEPARTMENT_NAME, "Department already exists");
+        changeOutbox.record(ChangeEntity.DEPARTMENT, id, ChangeType.UPDATED);
+        referenceDataCache.evictDepartment(id);
+        return savedDepartment;
     }
 
+    @Transactional
     public void deleteDepartment(Long id) throws ResponseStatusException {
-        if (!departmentRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+        Department department = departmentRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found"));
+
+        departmentRepository.delete(department);
+        changeOutbox.record(ChangeEntity.DEPARTMENT, id, ChangeType.DELETED);
+        referenceDataCache.evictDepartment(id);
+
+    }
+
+    private void addTaskCount(DepartmentOverviewDTO overview, DepartmentTaskCount count) {
+        overview.setTaskCount(overview.getTaskCount() + count.getTasks());
+        if (count.getStatus() != null) {
+            overview.getTasksByStatus().merge(count.getStatus(), count.getTasks(), Long::sum);
+        }
+        if (count.getPriority() != null) {
+            overview.getTasksByPriority().merge(count.getPriority(), count.getTasks(), Long::sum);
         }
+    }
 
-        departmentRepository.deleteById(id);
+    /**
+     * The cursor of an id listing is simply the last id handed out.
+     */
+    private CursorPageDTO<Long> pageIds(Long id, String cursor, int limit, IdPageQuery query)
+            throws ResponseStatusException {
+        if (limit < 1 || limit > MAX_ID_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_ID_PAGE_SIZE);
+        }
+        long afterId;
+        try {
+            afterId = cursor == null ? 0L : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        List<Long> ids = query.find(afterId, Limit.of(limit + 1));
+        // only an empty page needs the lookup telling an unknown department from one without ids
+        if (ids.isEmpty() && !departmentRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+        }
+        if (ids.size() <= limit) {
+            return new CursorPageDTO<>(ids, null);
+        }
+        List<Long> page = ids.subList(0, limit);
+        return new CursorPageDTO<>(page, String.valueOf(page.get(limit - 1)));
+    }
 
+    @FunctionalInterface
+    private interface IdPageQuery {
+        List<Long> find(Long afterId, Limit limit);
     }
 
     public DepartmentSummaryDTO toDepartmentSummaryDTO(Department department) {
@@ -127,6 +239,7 @@ public class DepartmentService {
         dto.setName(department.getName());
         dto.setCreatedAt(department.getCreatedAt());
         dto.setUpdatedAt(department.getUpdatedAt());
+        dto.setVersion(department.getVersion());
         if (department.getUsers() != null) dto.setUserIds(department.getUsers().stream().map(User::getId).collect(Collectors.toList()));
         if (department.getTasks() != null) dto.setTaskIds(department.getTasks().stream().map(Task::getId).collect(Collectors.toList()));
         return dto;
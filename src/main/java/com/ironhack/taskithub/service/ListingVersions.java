@@ -0,0 +1,75 @@
+package com.ironhack.taskithub.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * ListingVersions
+ *
+ * Change counters for the task listings of a department and of an assignee,
+ * kept in the listing_version table. Every write that changes what such a
+ * listing returns bumps its counter, after or together with the change
+ * itself, so a listing is never newer than its counter. The ETag of a listing
+ * is built from the counter alone: answering If-None-Match costs one primary
+ * key lookup and never reads a task row.
+ *
+ * taskithub.listing.etag-epoch is part of every tag; raise it when the
+ * listing format changes so clients drop what they have cached.
+ */
+@Component
+public class ListingVersions {
+    static final String DEPARTMENT_TASKS = "department-tasks";
+    static final String ASSIGNED_TASKS = "assigned-tasks";
+
+    private static final String SELECT = "select version from listing_version where scope = ? and scope_id = ?";
+    private static final String BUMP = "insert into listing_version (scope, scope_id, version) values (?, ?, 1) "
+            + "on duplicate key update version = version + 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${taskithub.listing.etag-epoch:1}")
+    private long epoch;
+
+    public String departmentTasksTag(Long departmentId) {
+        return tag(DEPARTMENT_TASKS, departmentId);
+    }
+
+    public String assignedTasksTag(Long userId) {
+        return tag(ASSIGNED_TASKS, userId);
+    }
+
+    public void departmentTasksChanged(Collection<Long> departmentIds) {
+        bump(DEPARTMENT_TASKS, departmentIds);
+    }
+
+    public void assignedTasksChanged(Collection<Long> userIds) {
+        bump(ASSIGNED_TASKS, userIds);
+    }
+
+    private String tag(String scope, Long id) {
+        List<Long> version = jdbcTemplate.queryForList(SELECT, Long.class, scope, id);
+        // weak: the tag stands for the content of the listing, not for its exact bytes
+        return "W/\"" + epoch + "." + scope + "." + id + "." + (version.isEmpty() ? 0 : version.get(0)) + "\"";
+    }
+
+    private void bump(String scope, Collection<Long> ids) {
+        // sorted, so concurrent writers lock the counter rows in the same order
+        TreeSet<Long> sortedIds = new TreeSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(sortedIds::add);
+        if (sortedIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(BUMP, sortedIds, sortedIds.size(), (ps, id) -> {
+            ps.setString(1, scope);
+            ps.setLong(2, id);
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.ironhack.taskithub.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ironhack.taskithub.model.BaseEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OptimisticLocking
+ *
+ * Rejects an update that was based on an older version than the one just
+ * read, before anything is changed. A write racing in after this check is
+ * still caught by the version condition of the UPDATE itself.
+ */
+@Slf4j
+final class OptimisticLocking {
+
+    private OptimisticLocking() {
+    }
+
+    static void checkVersion(BaseEntity entity, Long expectedVersion, String entityName)
+            throws ResponseStatusException {
+        if (expectedVersion != null && !expectedVersion.equals(entity.getVersion())) {
+            log.info("{} {} is at version {}, update expected {}", entityName, entity.getId(), entity.getVersion(),
+                    expectedVersion);
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    entityName + " was modified, current version is " + entity.getVersion());
+        }
+    }
+}
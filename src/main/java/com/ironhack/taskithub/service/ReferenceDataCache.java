@@ -0,0 +1,53 @@
+package com.ironhack.taskithub.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.User;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * ReferenceDataCache
+ *
+ * Explicit invalidation of the second-level cache regions of Department and
+ * User. Hibernate keeps the read-write regions in step with writes made
+ * through a session; the services still evict after their own updates and
+ * deletes so a stale entry cannot outlive a change made next to the
+ * persistence context (bulk statements, JDBC). Inside a transaction they
+ * evict again after the commit, which is when Hibernate puts the written
+ * entity back. The regions are local to each node, so another node's changes
+ * are evicted when they arrive through the change outbox.
+ */
+@Component
+public class ReferenceDataCache implements ChangeListener {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void evictUser(Long id) {
+        entityManagerFactory.getCache().evict(User.class, id);
+        AfterCommit.run(() -> entityManagerFactory.getCache().evict(User.class, id));
+    }
+
+    public void evictDepartment(Long id) {
+        entityManagerFactory.getCache().evict(Department.class, id);
+        AfterCommit.run(() -> entityManagerFactory.getCache().evict(Department.class, id));
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        Cache cache = entityManagerFactory.getCache();
+        for (ChangeEvent event : events) {
+            if (event.entity() == ChangeEntity.USER) {
+                cache.evict(User.class, event.entityId());
+            } else if (event.entity() == ChangeEntity.DEPARTMENT) {
+                cache.evict(Department.class, event.entityId());
+            }
+        }
+    }
+}
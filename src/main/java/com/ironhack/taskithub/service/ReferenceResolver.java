@@ -0,0 +1,85 @@
+package com.ironhack.taskithub.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ironhack.taskithub.model.BaseEntity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReferenceResolver
+ *
+ * Turns the id lists of incoming DTOs into entities with one IN query per
+ * entity type instead of one findById per id. The number of round trips this
+ * avoids is published as the taskithub.references.queries.saved counter.
+ */
+@Component
+@Slf4j
+public class ReferenceResolver {
+    private final Counter queriesSaved;
+
+    public ReferenceResolver(MeterRegistry meterRegistry) {
+        this.queriesSaved = Counter.builder("taskithub.references.queries.saved")
+                .description("findById round trips avoided by resolving references in bulk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolves every id, keeping the request order (and duplicates).
+     *
+     * @throws ResponseStatusException NOT_FOUND naming the first id that does not exist
+     */
+    public <T extends BaseEntity> List<T> resolveAll(JpaRepository<T, Long> repository, Collection<Long> ids,
+            String entityName) throws ResponseStatusException {
+        Map<Long, T> found = load(repository, ids);
+        List<T> resolved = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = found.get(id);
+            if (entity == null) {
+                log.error("{} not found: {}", entityName, id);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, entityName + " not found: " + id);
+            }
+            resolved.add(entity);
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves the ids that exist and silently skips the rest.
+     */
+    public <T extends BaseEntity> List<T> resolveExisting(JpaRepository<T, Long> repository, Collection<Long> ids) {
+        Map<Long, T> found = load(repository, ids);
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private <T extends BaseEntity> Map<Long, T> load(JpaRepository<T, Long> repository, Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, T> found = repository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
+        queriesSaved.increment(ids.size() - 1);
+        return found;
+    }
+}
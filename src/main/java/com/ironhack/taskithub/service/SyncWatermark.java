@@ -0,0 +1,76 @@
+package com.ironhack.taskithub.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.Getter;
+
+/**
+ * SyncWatermark
+ *
+ * Where a client stands in the change history of one task list: the
+ * (updatedAt, id) of the last changed task and the (removedAt, id) of the
+ * last tombstone it received. While a sync spans several pages the time the
+ * first page was served travels along, the last page rewinds both positions
+ * to that time minus the skew horizon (see TaskSyncService). Clients only
+ * ever see the encoded form.
+ */
+@Getter
+class SyncWatermark {
+    private static final String SEPARATOR = "|";
+
+    private final String scope;
+    private final Long scopeId;
+    private final LocalDateTime changedAt;
+    private final Long changedId;
+    private final LocalDateTime removedAt;
+    private final Long removedId;
+    // null once the client has caught up
+    private final LocalDateTime startedAt;
+
+    SyncWatermark(String scope, Long scopeId, LocalDateTime changedAt, Long changedId, LocalDateTime removedAt,
+            Long removedId, LocalDateTime startedAt) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.changedAt = changedAt;
+        this.changedId = changedId;
+        this.removedAt = removedAt;
+        this.removedId = removedId;
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * A client without history needs every task of the list, but no removal
+     * that happened before it started.
+     */
+    static SyncWatermark initial(String scope, Long scopeId, LocalDateTime horizon) {
+        return new SyncWatermark(scope, scopeId, TaskCursor.START, 0L, horizon, 0L, null);
+    }
+
+    String encode() {
+        String raw = String.join(SEPARATOR, scope, scopeId.toString(), changedAt.toString(), changedId.toString(),
+                removedAt.toString(), removedId.toString(), startedAt != null ? startedAt.toString() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static SyncWatermark decode(String watermark, String expectedScope, Long expectedScopeId)
+            throws ResponseStatusException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 7 || !expectedScope.equals(parts[0]) || !expectedScopeId.toString().equals(parts[1])) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Watermark belongs to another task list");
+            }
+            return new SyncWatermark(expectedScope, expectedScopeId, LocalDateTime.parse(parts[2]),
+                    Long.valueOf(parts[3]), LocalDateTime.parse(parts[4]), Long.valueOf(parts[5]),
+                    parts[6].isEmpty() ? null : LocalDateTime.parse(parts[6]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid watermark");
+        }
+    }
+}
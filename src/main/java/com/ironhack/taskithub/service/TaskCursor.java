@@ -0,0 +1,75 @@
+package com.ironhack.taskithub.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.TaskSortKey;
+
+import lombok.Getter;
+
+/**
+ * TaskCursor
+ *
+ * Keyset position inside a task listing: the sort key, the sort value of the
+ * last row handed out and its id. Clients only ever see the encoded form.
+ * Tasks without a due date are listed after all dated ones, so a DUE_DATE
+ * cursor with a null value points into that trailing id-ordered section.
+ */
+@Getter
+class TaskCursor {
+    // lower than any timestamp MySQL can store, so the first page needs no special query
+    static final LocalDateTime START = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private static final String SEPARATOR = "|";
+
+    private final TaskSortKey sortKey;
+    private final LocalDateTime value;
+    private final Long id;
+
+    private TaskCursor(TaskSortKey sortKey, LocalDateTime value, Long id) {
+        this.sortKey = sortKey;
+        this.value = value;
+        this.id = id;
+    }
+
+    static TaskCursor first(TaskSortKey sortKey) {
+        return new TaskCursor(sortKey, START, 0L);
+    }
+
+    static TaskCursor after(TaskSortKey sortKey, TaskSummaryDTO task) {
+        LocalDateTime value = sortKey == TaskSortKey.DUE_DATE ? task.getDueDate() : task.getUpdatedAt();
+        return new TaskCursor(sortKey, value, task.getId());
+    }
+
+    boolean isWithoutValue() {
+        return value == null;
+    }
+
+    String encode() {
+        String raw = sortKey.name() + SEPARATOR + (value != null ? value.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static TaskCursor decode(String cursor, TaskSortKey expectedSortKey) throws ResponseStatusException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3 || !expectedSortKey.name().equals(parts[0])) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort");
+            }
+            LocalDateTime value = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            if (value == null && expectedSortKey != TaskSortKey.DUE_DATE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            return new TaskCursor(expectedSortKey, value, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.ironhack.taskithub.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.dto.TaskEventDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.enums.TaskEventType;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TaskEventHub
+ *
+ * Fans task changes out to the subscribers of GET /tasks/events, each
+ * following one department or one assignee. Idle subscribers cost a map entry
+ * and an open async request, no thread. Every subscriber has a bounded queue
+ * drained by its own virtual thread while events are pending; a subscriber
+ * whose queue overflows is disconnected rather than slowing anyone else down.
+ *
+ * Changes arrive through the change outbox (see ChangeOutboxRelay).
+ *
+ * The last taskithub.events.replay-size events are kept, so a client that
+ * reconnects with Last-Event-ID gets what it missed. If that is no longer
+ * possible it gets a RESET event and has to refetch (or use GET /tasks/sync).
+ */
+@Component
+@Slf4j
+public class TaskEventHub implements ChangeListener {
+    private static final Event HEARTBEAT = new Event(0, null, null, null, Set.of(), Set.of());
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${taskithub.events.replay-size:1024}")
+    private int replaySize;
+
+    @Value("${taskithub.events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${taskithub.events.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${taskithub.events.timeout:30m}")
+    private Duration timeout;
+
+    // ids restart with the process, the epoch tells a pre-restart Last-Event-ID apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, Set<Subscriber>> byDepartment = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byAssignee = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private Counter evictions;
+
+    // guarded by this
+    private Event[] replay;
+    private long nextSequence = 1;
+
+    private record Event(long sequence, String id, TaskEventType type, String data, Set<Long> departmentIds,
+            Set<Long> assigneeIds) {
+    }
+
+    @PostConstruct
+    void open() {
+        replay = new Event[replaySize];
+        Gauge.builder("taskithub.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open GET /tasks/events streams")
+                .register(meterRegistry);
+        evictions = Counter.builder("taskithub.events.evictions")
+                .description("Event subscribers disconnected for falling behind")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a stream of the changes to one department's or one assignee's
+     * tasks, starting after lastEventId if given.
+     */
+    public SseEmitter subscribe(Long departmentId, Long assigneeId, String lastEventId)
+            throws ResponseStatusException {
+        if ((departmentId == null) == (assigneeId == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either departmentId or assigneeId is required");
+        }
+        if (departmentId != null && !departmentRepository.existsById(departmentId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+        }
+        if (assigneeId != null && !userRepository.existsById(assigneeId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = departmentId != null
+                ? new Subscriber(emitter, byDepartment, departmentId, true)
+                : new Subscriber(emitter, byAssignee, assigneeId, false);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        // registering and replaying under the publish lock: nothing is missed or sent twice
+        synchronized (this) {
+            List<Event> missed = lastEventId != null ? missedSince(lastEventId, subscriber) : List.of();
+            subscriber.registry.computeIfAbsent(subscriber.key, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            if (missed == null) {
+                subscriber.offer(reset());
+            } else {
+                missed.forEach(subscriber::offer);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Turns the task changes relayed from the outbox into events, reading the
+     * current state of the batch in one query. Each event reaches the
+     * subscribers of the task's department and assignees as well as those it
+     * was taken from.
+     */
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        List<ChangeEvent> taskChanges = events.stream().filter(event -> event.entity() == ChangeEntity.TASK).toList();
+        List<Long> changedIds = taskChanges.stream().filter(event -> event.type() != ChangeType.DELETED)
+                .map(ChangeEvent::entityId).distinct().toList();
+        Map<Long, TaskSummaryDTO> tasks = changedIds.isEmpty() ? Map.of()
+                : taskRepository.findSummariesByIds(changedIds).stream()
+                        .collect(Collectors.toMap(TaskSummaryDTO::getId, Function.identity()));
+        for (ChangeEvent change : taskChanges) {
+            TaskSummaryDTO task = tasks.get(change.entityId());
+            if (change.type() != ChangeType.DELETED && task == null) {
+                // deleted since, its DELETED change follows
+                continue;
+            }
+            Set<Long> departmentIds = new HashSet<>(change.departmentIds());
+            Set<Long> assigneeIds = new HashSet<>(change.userIds());
+            if (task != null) {
+                departmentIds.add(task.getDepartmentId());
+                assigneeIds.addAll(task.getAssignedUserIds());
+            }
+            publish(TaskEventType.valueOf(change.type().name()), change.entityId(), task, departmentIds, assigneeIds);
+        }
+    }
+
+    /**
+     * Sends an event to the subscribers of the given departments and
+     * assignees.
+     *
+     * @param task the task after the change, null if it was deleted
+     */
+    public void publish(TaskEventType type, Long taskId, TaskSummaryDTO task, Collection<Long> departmentIds,
+            Collection<Long> assigneeIds) {
+        String data = json(new TaskEventDTO(type, taskId, task));
+        Set<Long> departments = departmentIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> assignees = assigneeIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        synchronized (this) {
+            long sequence = nextSequence++;
+            Event event = new Event(sequence, epoch + "-" + sequence, type, data, departments, assignees);
+            replay[(int) (sequence % replaySize)] = event;
+            departments.forEach(id -> byDepartment.getOrDefault(id, Set.of()).forEach(s -> s.offer(event)));
+            assignees.forEach(id -> byAssignee.getOrDefault(id, Set.of()).forEach(s -> s.offer(event)));
+        }
+    }
+
+    /**
+     * Keeps idle connections from being closed by proxies and finds the ones
+     * the client has left.
+     */
+    @Scheduled(fixedDelayString = "${taskithub.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        byDepartment.values().forEach(subscribers -> subscribers.forEach(Subscriber::heartbeat));
+        byAssignee.values().forEach(subscribers -> subscribers.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * The buffered events after lastEventId the subscriber follows, null if
+     * some of them are gone or there are more than its queue holds.
+     */
+    private List<Event> missedSince(String lastEventId, Subscriber subscriber) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = Math.max(1, nextSequence - replaySize);
+        if (last < oldest - 1 || last >= nextSequence) {
+            return null;
+        }
+        List<Event> missed = new ArrayList<>();
+        for (long sequence = last + 1; sequence < nextSequence; sequence++) {
+            Event event = replay[(int) (sequence % replaySize)];
+            if (subscriber.follows(event)) {
+                missed.add(event);
+            }
+        }
+        return missed.size() <= subscriberBuffer ? missed : null;
+    }
+
+    // carries the id of the latest event, a client reconnecting after it resumes from there
+    private Event reset() {
+        long latest = nextSequence - 1;
+        return new Event(latest, epoch + "-" + latest, TaskEventType.RESET,
+                json(new TaskEventDTO(TaskEventType.RESET, null, null)), Set.of(), Set.of());
+    }
+
+    private String json(TaskEventDTO event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<Long, Set<Subscriber>> registry;
+        private final Long key;
+        private final boolean department;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Map<Long, Set<Subscriber>> registry, Long key, boolean department) {
+            this.emitter = emitter;
+            this.registry = registry;
+            this.key = key;
+            this.department = department;
+            this.queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        }
+
+        boolean follows(Event event) {
+            return department ? event.departmentIds().contains(key) : event.assigneeIds().contains(key);
+        }
+
+        void offer(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.info("Disconnecting slow event subscriber of {} {}", department ? "department" : "assignee", key);
+                evictions.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            if (queue.isEmpty()) {
+                offer(HEARTBEAT);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    Event event;
+                    while (!closed.get() && (event = queue.poll()) != null) {
+                        emitter.send(event == HEARTBEAT
+                                ? SseEmitter.event().comment("heartbeat")
+                                : SseEmitter.event().id(event.id()).name(event.type().name()).data(event.data()));
+                    }
+                    sending.set(false);
+                    // an event offered after the last poll but before the flag was cleared
+                } while (!closed.get() && !queue.isEmpty() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone or the emitter already completed
+                close();
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            registry.computeIfPresent(key, (id, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.ironhack.taskithub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskImportErrorDTO;
+import com.ironhack.taskithub.dto.TaskImportResultDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TaskImportService
+ *
+ * Bulk task import that bypasses the persistence context. The input is read
+ * as a stream (JSON array or NDJSON) and handled in chunks of
+ * taskithub.import.batch-size rows: the references of a chunk are checked
+ * with one id query per entity type, then its tasks and assignee links go to
+ * the database as two JDBC batches in one transaction. Ids stay
+ * auto-increment and come back from the batched insert through
+ * getGeneratedKeys, so unlike Hibernate's IDENTITY inserts nothing is sent
+ * row by row. Invalid rows are reported and skipped, a chunk the database
+ * rejects is rolled back on its own. Every chunk records its tasks in the
+ * change outbox in the same transaction.
+ */
+@Service
+@Slf4j
+public class TaskImportService {
+    private static final String INSERT_TASK = "insert into task (title, description, due_date, priority, status, "
+            + "department_id, created_by_id, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ASSIGNEE = "insert into task_assigned_users (task_id, user_id) values (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private ListingVersions listingVersions;
+
+    @Value("${taskithub.import.batch-size:1000}")
+    private int batchSize;
+
+    private record ImportRow(int row, TaskDTO task) {
+    }
+
+    public TaskImportResultDTO importTasks(InputStream input) {
+        TaskImportResultDTO result = new TaskImportResultDTO();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        int row = 0;
+        // a root-level array is unwrapped, whitespace separated values (NDJSON) are read one after the other
+        try (MappingIterator<TaskDTO> rows = objectMapper.readerFor(TaskDTO.class).readValues(input)) {
+            while (rows.hasNextValue()) {
+                row++;
+                try {
+                    chunk.add(new ImportRow(row, rows.nextValue()));
+                } catch (JsonMappingException e) {
+                    // the iterator skips the rest of the broken value
+                    result.getErrors().add(new TaskImportErrorDTO(row, "Invalid task: " + e.getOriginalMessage()));
+                }
+                if (chunk.size() == batchSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Task import stopped at row {}", row, e);
+            result.getErrors().add(new TaskImportErrorDTO(row, "Malformed input, import stopped: " + e.getMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        result.setReceived(row);
+        log.info("Imported {} of {} tasks", result.getImported(), row);
+        return result;
+    }
+
+    private void importChunk(List<ImportRow> chunk, TaskImportResultDTO result) {
+        Set<Long> departmentIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (ImportRow importRow : chunk) {
+            TaskDTO task = importRow.task();
+            departmentIds.add(task.getDepartmentId());
+            userIds.add(task.getCreatedById());
+            if (task.getAssignedUserIds() != null) {
+                userIds.addAll(task.getAssignedUserIds());
+            }
+        }
+        departmentIds.remove(null);
+        userIds.remove(null);
+        Set<Long> existingDepartments = departmentIds.isEmpty() ? Collections.emptySet()
+                : departmentRepository.findExistingIds(departmentIds);
+        Set<Long> existingUsers = userIds.isEmpty() ? Collections.emptySet() : userRepository.findExistingIds(userIds);
+
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow importRow : chunk) {
+            String error = validate(importRow.task(), existingDepartments, existingUsers);
+            if (error != null) {
+                result.getErrors().add(new TaskImportErrorDTO(importRow.row(), error));
+            } else {
+                valid.add(importRow);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            // the listing counters are bumped in the chunk's transaction, like on every other write path
+            transactionTemplate.executeWithoutResult(status -> {
+                insert(valid);
+                Set<Long> changedDepartments = new HashSet<>();
+                Set<Long> changedAssignees = new HashSet<>();
+                for (ImportRow importRow : valid) {
+                    TaskDTO task = importRow.task();
+                    changedDepartments.add(task.getDepartmentId());
+                    if (task.getAssignedUserIds() != null) {
+                        changedAssignees.addAll(task.getAssignedUserIds());
+                    }
+                }
+                listingVersions.departmentTasksChanged(changedDepartments);
+                listingVersions.assignedTasksChanged(changedAssignees);
+            });
+            result.setImported(result.getImported() + valid.size());
+        } catch (DataAccessException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.error("Task import chunk rolled back: {}", cause);
+            for (ImportRow importRow : valid) {
+                result.getErrors().add(new TaskImportErrorDTO(importRow.row(), "Chunk rolled back: " + cause));
+            }
+        }
+    }
+
+    private String validate(TaskDTO task, Set<Long> existingDepartments, Set<Long> existingUsers) {
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (task.getDepartmentId() == null) {
+            return "Department is required";
+        }
+        if (!existingDepartments.contains(task.getDepartmentId())) {
+            return "Department not found: " + task.getDepartmentId();
+        }
+        if (task.getCreatedById() == null) {
+            return "Creator is required";
+        }
+        if (!existingUsers.contains(task.getCreatedById())) {
+            return "User not found: " + task.getCreatedById();
+        }
+        if (task.getAssignedUserIds() != null) {
+            for (Long userId : task.getAssignedUserIds()) {
+                if (!existingUsers.contains(userId)) {
+                    return "User not found: " + userId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void insert(List<ImportRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_TASK, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        TaskDTO task = rows.get(i).task();
+                        ps.setString(1, task.getTitle());
+                        ps.setString(2, task.getDescription());
+                        ps.setObject(3, task.getDueDate() != null ? Timestamp.valueOf(task.getDueDate()) : null,
+                                Types.TIMESTAMP);
+                        ps.setString(4, task.getPriority() != null ? task.getPriority().name() : null);
+                        ps.setString(5, task.getStatus() != null ? task.getStatus().name() : null);
+                        ps.setLong(6, task.getDepartmentId());
+                        ps.setLong(7, task.getCreatedById());
+                        ps.setTimestamp(8, now);
+                        ps.setTimestamp(9, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+
+        // the driver names the key column differently (id, ID, GENERATED_KEY), it is the only one
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> key : keyHolder.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        List<long[]> assignments = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            List<Long> assignedUserIds = rows.get(i).task().getAssignedUserIds();
+            if (assignedUserIds == null) {
+                continue;
+            }
+            long taskId = ids.get(i);
+            for (Long userId : new HashSet<>(assignedUserIds)) {
+                assignments.add(new long[] { taskId, userId });
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ASSIGNEE, assignments, batchSize, (ps, assignment) -> {
+            ps.setLong(1, assignment[0]);
+            ps.setLong(2, assignment[1]);
+        });
+        changeOutbox.recordAll(ChangeEntity.TASK, ids, ChangeType.CREATED, Map.of());
+    }
+}
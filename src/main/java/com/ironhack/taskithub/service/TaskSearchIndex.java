@@ -0,0 +1,292 @@
+package com.ironhack.taskithub.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.TaskRepository.TaskIndexRow;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TaskSearchIndex
+ *
+ * Embedded Lucene index over task titles and descriptions. Documents only
+ * hold what a query needs (text, department, status); the matching tasks are
+ * read back from the database, so the index never serves stale fields.
+ *
+ * Changes reach the index through the change outbox (see ChangeOutboxRelay),
+ * so only committed ones do, without the write paying for the indexing. A
+ * rebuild tags every document with a new generation and drops the older ones
+ * at the end, so searches keep seeing a complete index while it runs.
+ */
+@Component
+@Slf4j
+public class TaskSearchIndex implements ChangeListener {
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String DEPARTMENT = "departmentId";
+    private static final String STATUS = "status";
+    private static final String GENERATION = "generation";
+
+    // a whole word counts more than a word starting with the typed text, a title hit more than a description hit
+    private static final float TITLE_BOOST = 3f;
+    private static final float PREFIX_BOOST = 0.5f;
+    private static final int MAX_QUERY_TERMS = 16;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Value("${taskithub.search.index-dir:}")
+    private String indexDir;
+
+    @Value("${taskithub.search.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    @Value("${taskithub.search.min-prefix-length:2}")
+    private int minPrefixLength;
+
+    @Value("${taskithub.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile long generation = System.currentTimeMillis();
+    // not synchronized: a virtual thread blocked on the database inside a monitor would pin its carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reindexes every task from the database, in id order and
+     * taskithub.search.rebuild-batch-size rows at a time.
+     *
+     * @return the number of tasks indexed
+     */
+    public long rebuild() {
+        rebuildLock.lock();
+        try {
+            return rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private long rebuildLocked() {
+        long started = System.currentTimeMillis();
+        long rebuildGeneration = Math.max(started, generation + 1);
+        generation = rebuildGeneration;
+        long indexed = 0;
+        try {
+            Long afterId = 0L;
+            List<TaskIndexRow> rows;
+            do {
+                rows = taskRepository.findIndexRows(afterId, Limit.of(rebuildBatchSize));
+                for (TaskIndexRow row : rows) {
+                    write(row.getId(), row.getTitle(), row.getDescription(), row.getDepartmentId(), row.getStatus());
+                }
+                indexed += rows.size();
+                if (!rows.isEmpty()) {
+                    afterId = rows.get(rows.size() - 1).getId();
+                }
+            } while (rows.size() == rebuildBatchSize);
+            // tasks deleted before the rebuild reached them
+            writer.deleteDocuments(LongPoint.newRangeQuery(GENERATION, Long.MIN_VALUE, rebuildGeneration - 1));
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Search index rebuilt: {} tasks in {} ms", indexed, System.currentTimeMillis() - started);
+        return indexed;
+    }
+
+    /**
+     * Reindexes the created and updated tasks of the batch from the database
+     * in one query and drops the deleted ones.
+     */
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        Set<Long> changed = new HashSet<>();
+        try {
+            for (ChangeEvent event : events) {
+                if (event.entity() != ChangeEntity.TASK) {
+                    continue;
+                }
+                if (event.type() == ChangeType.DELETED) {
+                    changed.remove(event.entityId());
+                    writer.deleteDocuments(new Term(ID, String.valueOf(event.entityId())));
+                } else {
+                    changed.add(event.entityId());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!changed.isEmpty()) {
+            // a task deleted in the meantime is not found and stays out
+            for (TaskIndexRow row : taskRepository.findIndexRowsByIds(changed)) {
+                write(row.getId(), row.getTitle(), row.getDescription(), row.getDepartmentId(), row.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Ids of the best matching tasks, best first. Every word of the text has
+     * to match the title or the description, either as a whole word or as the
+     * start of one; department and statuses narrow the result without
+     * affecting the ranking.
+     */
+    public List<Long> search(String text, Long departmentId, Collection<Status> statuses, int limit) {
+        List<String> terms = analyze(text);
+        List<Long> ids = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return ids;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(termQuery(term), Occur.MUST);
+        }
+        if (departmentId != null) {
+            query.add(LongPoint.newExactQuery(DEPARTMENT, departmentId), Occur.FILTER);
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            BooleanQuery.Builder anyStatus = new BooleanQuery.Builder();
+            statuses.forEach(status -> anyStatus.add(new TermQuery(new Term(STATUS, status.name())), Occur.SHOULD));
+            query.add(anyStatus.build(), Occur.FILTER);
+        }
+
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query.build(), limit);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    ids.add(Long.valueOf(searcher.storedFields().document(hit.doc).get(ID)));
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    private Query termQuery(String term) {
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(new Term(TITLE, term)), TITLE_BOOST), Occur.SHOULD)
+                .add(new TermQuery(new Term(DESCRIPTION, term)), Occur.SHOULD);
+        if (term.length() >= minPrefixLength) {
+            anyField.add(new BoostQuery(new PrefixQuery(new Term(TITLE, term)), TITLE_BOOST * PREFIX_BOOST), Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(DESCRIPTION, term)), PREFIX_BOOST), Occur.SHOULD);
+        }
+        return anyField.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken() && terms.size() < MAX_QUERY_TERMS) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private void write(Long id, String title, String description, Long departmentId, Status status) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        document.add(new LongPoint(GENERATION, generation));
+        if (title != null) {
+            document.add(new TextField(TITLE, title, Field.Store.NO));
+        }
+        if (description != null) {
+            document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        if (departmentId != null) {
+            document.add(new LongPoint(DEPARTMENT, departmentId));
+        }
+        if (status != null) {
+            document.add(new StringField(STATUS, status.name(), Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(id)), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,21 +1,45 @@
 package com.ironhack.taskithub.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.ironhack.taskithub.datasource.DbTime;
+import com.ironhack.taskithub.dto.AggregatedIds;
+import com.ironhack.taskithub.dto.CursorPageDTO;
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
 import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskSearchDTO;
 import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.enums.TaskSortKey;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.TaskRepository.TaskAssigneeIds;
+import com.ironhack.taskithub.repository.TaskSpecifications;
 import com.ironhack.taskithub.repository.UserRepository;
 
 
@@ -24,6 +48,8 @@ import com.ironhack.taskithub.repository.UserRepository;
  */
 @Service
 public class TaskService {
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private TaskRepository taskRepository;
 
@@ -33,11 +59,28 @@ public class TaskService {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private ReferenceResolver referenceResolver;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private ListingVersions listingVersions;
+
+    @Autowired
+    private TaskTombstones taskTombstones;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Transactional
     public Task createTaskFromDTO(TaskDTO taskDTO) {
         Task task = taskDTO.toTask();
         return createTask(task, taskDTO.getDepartmentId(), taskDTO.getCreatedById(), taskDTO.getAssignedUserIds());
     }
 
+    @Transactional
     public Task createTask(Task task, Long departmentId, Long createdById, List<Long> assignedUserIds)
             throws ResponseStatusException {
         Department department = departmentRepository.findById(departmentId)
@@ -50,56 +93,156 @@ public class TaskService {
         task.setCreatedBy(createdBy);
 
         if (assignedUserIds != null) {
-            List<User> assignedUsers = assignedUserIds.stream()
-                    .map(id -> userRepository.findById(id)
-                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")))
-                    .collect(Collectors.toList());
-            task.setAssignedUsers(assignedUsers);
+            task.setAssignedUsers(referenceResolver.resolveAll(userRepository, assignedUserIds, "User"));
         }
 
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        changeOutbox.record(ChangeEntity.TASK, savedTask.getId(), ChangeType.CREATED);
+        listingVersions.departmentTasksChanged(List.of(departmentId));
+        listingVersions.assignedTasksChanged(userIds(savedTask.getAssignedUsers()));
+        return savedTask;
     }
 
-    public List<Task> getTasksByDepartment(Long departmentId) throws ResponseStatusException {
+    public Task getTaskById(Long id) throws ResponseStatusException {
+        return taskRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+    }
 
-        if (departmentRepository.findById(departmentId).isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
-        }
+    // Read-only endpoints below are served from projections (see TaskRepository) instead of managed entities.
 
-        return taskRepository.findByDepartmentId(departmentId);
+    public TaskSummaryDTO getTaskSummaryById(Long id) throws ResponseStatusException {
+        return taskRepository.findSummaryById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
     }
 
-    public List<Task> getTasksCreatedByUser(Long userId) throws ResponseStatusException {
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-        }
-        return taskRepository.findByCreatedBy_Id(userId);
+    public List<TaskDTO> getAllTaskDTOs() {
+        return taskRepository.findAllTaskDTOs();
     }
 
-    public List<Task> getTasksAssignedToUser(Long userId) throws ResponseStatusException {
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-        }
-        return taskRepository.findByAssignedUsers_Id(userId);
+    // Listings of a department's or user's tasks run the listing query first and only look the parent up
+    // when it comes back empty, to tell an empty list from an unknown id: one statement for every list that
+    // has tasks.
+
+    public List<TaskSummaryDTO> getTaskSummariesByDepartment(Long departmentId) throws ResponseStatusException {
+        return departmentTasks(taskRepository.findSummariesByDepartmentId(departmentId), departmentId);
     }
 
-    public Task getTaskById(Long id) throws ResponseStatusException {
-        return taskRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+    public List<TaskSummaryDTO> getTaskSummariesCreatedByUser(Long userId) throws ResponseStatusException {
+        return userTasks(taskRepository.findSummariesByCreatedById(userId), userId);
+    }
+
+    public List<TaskSummaryDTO> getTaskSummariesAssignedToUser(Long userId) throws ResponseStatusException {
+        return userTasks(taskRepository.findSummariesByAssigneeId(userId), userId);
+    }
+
+    /**
+     * Validator of getTaskSummariesByDepartment, read without touching the tasks.
+     */
+    public String getDepartmentTasksTag(Long departmentId) {
+        return listingVersions.departmentTasksTag(departmentId);
+    }
+
+    /**
+     * Validator of getTaskSummariesAssignedToUser, read without touching the tasks.
+     */
+    public String getAssignedTasksTag(Long userId) {
+        return listingVersions.assignedTasksTag(userId);
     }
 
-    public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+    public CursorPageDTO<TaskDTO> getAllTasksPage(String cursor, int limit, TaskSortKey sort) {
+        return scrollTasks(cursor, limit, sort,
+                taskRepository::findAllByUpdatedAtKeyset,
+                taskRepository::findAllByDueDateKeyset,
+                taskRepository::findAllWithoutDueDateKeyset)
+                .map(this::toTaskDTO);
     }
 
-    public Task updateTaskFromDTO(Long id, TaskDTO taskDTO) {
+    public CursorPageDTO<TaskSummaryDTO> getTasksByDepartmentPage(Long departmentId, String cursor, int limit,
+            TaskSortKey sort) throws ResponseStatusException {
+        CursorPageDTO<TaskSummaryDTO> page = scrollTasks(cursor, limit, sort,
+                (updatedAt, id, max) -> taskRepository.findByDepartmentUpdatedAtKeyset(departmentId, updatedAt, id, max),
+                (dueDate, id, max) -> taskRepository.findByDepartmentDueDateKeyset(departmentId, dueDate, id, max),
+                (id, max) -> taskRepository.findByDepartmentWithoutDueDateKeyset(departmentId, id, max));
+        departmentTasks(page.getItems(), departmentId);
+        return withAssigneeIds(page);
+    }
+
+    public CursorPageDTO<TaskSummaryDTO> getTasksCreatedByUserPage(Long userId, String cursor, int limit,
+            TaskSortKey sort) throws ResponseStatusException {
+        CursorPageDTO<TaskSummaryDTO> page = scrollTasks(cursor, limit, sort,
+                (updatedAt, id, max) -> taskRepository.findByCreatorUpdatedAtKeyset(userId, updatedAt, id, max),
+                (dueDate, id, max) -> taskRepository.findByCreatorDueDateKeyset(userId, dueDate, id, max),
+                (id, max) -> taskRepository.findByCreatorWithoutDueDateKeyset(userId, id, max));
+        userTasks(page.getItems(), userId);
+        return withAssigneeIds(page);
+    }
+
+    public CursorPageDTO<TaskSummaryDTO> getTasksAssignedToUserPage(Long userId, String cursor, int limit,
+            TaskSortKey sort) throws ResponseStatusException {
+        CursorPageDTO<TaskSummaryDTO> page = scrollTasks(cursor, limit, sort,
+                (updatedAt, id, max) -> taskRepository.findByAssigneeUpdatedAtKeyset(userId, updatedAt, id, max),
+                (dueDate, id, max) -> taskRepository.findByAssigneeDueDateKeyset(userId, dueDate, id, max),
+                (id, max) -> taskRepository.findByAssigneeWithoutDueDateKeyset(userId, id, max));
+        userTasks(page.getItems(), userId);
+        return withAssigneeIds(page);
+    }
+
+    /**
+     * Keyset-paginated search combining the filters of the request into one
+     * query. An empty search is rejected: every filter is backed by an index
+     * (see db/migration), a search without one would scan the table, and the
+     * unfiltered listing already exists as getAllTasksPage.
+     */
+    public CursorPageDTO<TaskSummaryDTO> searchTasks(TaskSearchDTO search, String cursor, int limit,
+            TaskSortKey sort) throws ResponseStatusException {
+        boolean hasFilter = search.getDepartmentId() != null || search.getCreatedById() != null
+                || search.getAssigneeId() != null || (search.getStatus() != null && !search.getStatus().isEmpty())
+                || (search.getPriority() != null && !search.getPriority().isEmpty())
+                || search.getDueFrom() != null || search.getDueTo() != null;
+        if (!hasFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one filter is required");
+        }
+        if (search.getDueFrom() != null && search.getDueTo() != null
+                && search.getDueFrom().isAfter(search.getDueTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "dueFrom must not be after dueTo");
+        }
+        Specification<Task> filter = TaskSpecifications.matching(search);
+        return withAssigneeIds(scrollTasks(cursor, limit, sort,
+                (updatedAt, id, max) -> taskRepository.findSummaries(
+                        filter.and(TaskSpecifications.updatedAfter(updatedAt, id)), Sort.by("updatedAt", "id"), max),
+                (dueDate, id, max) -> taskRepository.findSummaries(
+                        filter.and(TaskSpecifications.dueAfter(dueDate, id)), Sort.by("dueDate", "id"), max),
+                (id, max) -> taskRepository.findSummaries(
+                        filter.and(TaskSpecifications.withoutDueDateAfter(id)), Sort.by("id"), max)));
+    }
+
+    @Transactional
+    public Task updateTaskFromDTO(Long id, TaskDTO taskDTO, Long expectedVersion) {
         Task task = taskDTO.toTask();
-        return updateTask(id, task, taskDTO.getAssignedUserIds());
+        return updateTask(id, task, taskDTO.getAssignedUserIds(), expectedVersion);
     }
 
+    @Transactional
     public Task updateTask(Long id, Task updatedTask, List<Long> assignedUserIds) throws ResponseStatusException {
+        return updateTask(id, updatedTask, assignedUserIds, null);
+    }
+
+    /**
+     * @param expectedVersion the version the change is based on, null to overwrite whatever is stored
+     * @throws ResponseStatusException PRECONDITION_FAILED if the task has changed since that version
+     */
+    @Transactional
+    public Task updateTask(Long id, Task updatedTask, List<Long> assignedUserIds, Long expectedVersion)
+            throws ResponseStatusException {
         Task existingTask = taskRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+        OptimisticLocking.checkVersion(existingTask, expectedVersion, "Task");
+        // the listings the task leaves change as well as the ones it shows up in
+        Long previousDepartmentId = existingTask.getDepartment() != null ? existingTask.getDepartment().getId() : null;
+        List<Long> previousAssigneeIds = userIds(existingTask.getAssignedUsers());
+        Set<Long> departmentIds = new HashSet<>();
+        departmentIds.add(previousDepartmentId);
+        Set<Long> assigneeIds = new HashSet<>(previousAssigneeIds);
 
         existingTask.setTitle(updatedTask.getTitle());
         existingTask.setDescription(updatedTask.getDescription());
@@ -119,18 +262,188 @@ public class TaskService {
         existingTask.setUpdatedAt(LocalDateTime.now());
 
         if (assignedUserIds != null) {
-            List<User> assignedUsers = assignedUserIds.stream()
-                    .map(userId -> userRepository.findById(userId)
-                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")))
-                    .collect(Collectors.toList());
-            existingTask.setAssignedUsers(assignedUsers);
+            existingTask.setAssignedUsers(referenceResolver.resolveAll(userRepository, assignedUserIds, "User"));
+        }
+
+        Task savedTask = taskRepository.save(existingTask);
+        Long departmentId = savedTask.getDepartment() != null ? savedTask.getDepartment().getId() : null;
+        List<Long> currentAssigneeIds = userIds(savedTask.getAssignedUsers());
+        List<Long> departmentsLeft = previousDepartmentId != null && !previousDepartmentId.equals(departmentId)
+                ? List.of(previousDepartmentId) : List.of();
+        List<Long> assigneesLeft = previousAssigneeIds.stream()
+                .filter(userId -> !currentAssigneeIds.contains(userId)).collect(Collectors.toList());
+        departmentsLeft.forEach(left -> taskTombstones.removedFromDepartment(id, left));
+        taskTombstones.removedFromAssignees(id, assigneesLeft);
+        changeOutbox.record(ChangeEntity.TASK, id, ChangeType.UPDATED, departmentsLeft, assigneesLeft);
+        departmentIds.add(departmentId);
+        assigneeIds.addAll(currentAssigneeIds);
+        listingVersions.departmentTasksChanged(departmentIds);
+        listingVersions.assignedTasksChanged(assigneeIds);
+        return savedTask;
+    }
+
+    /**
+     * Changes status and/or priority of every task matching the filter with a
+     * single UPDATE. At least one filter and one change are required, so a
+     * typo cannot rewrite the whole table. The tasks to change are selected
+     * and locked first; the UPDATE, the outbox and the listing bumps all work
+     * on those ids.
+     *
+     * @return the number of tasks changed
+     */
+    @Transactional
+    public int bulkUpdateTasks(TaskBulkUpdateDTO request) throws ResponseStatusException {
+        boolean hasFilter = request.getIds() != null || request.getDepartmentId() != null
+                || request.getCurrentStatus() != null || request.getDueFrom() != null || request.getDueTo() != null;
+        if (!hasFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one filter is required");
+        }
+        if (request.getStatus() == null && request.getPriority() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to change");
+        }
+        if (request.getIds() != null && request.getIds().isEmpty()) {
+            return 0;
+        }
+        if (request.getDueFrom() != null && request.getDueTo() != null
+                && request.getDueFrom().isAfter(request.getDueTo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "dueFrom must not be after dueTo");
         }
+        List<Long> ids = taskRepository.lockIdsToBulkUpdate(request);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime updatedAt = DbTime.now();
+        int affected = taskRepository.bulkUpdate(ids, request, updatedAt);
+        changeOutbox.recordAll(ChangeEntity.TASK, ids, ChangeType.UPDATED, Map.of());
+        listingVersions.departmentTasksChanged(taskRepository.findDepartmentIdsByIds(ids));
+        listingVersions.assignedTasksChanged(taskRepository.findAssigneeIdsByIds(ids));
+        return affected;
+    }
 
-        return taskRepository.save(existingTask);
+    /**
+     * Full-text search over titles and descriptions, best match first (see
+     * TaskSearchIndex). The index only yields ids, the summaries are read from
+     * the database in one query.
+     */
+    public List<TaskSummaryDTO> searchTaskText(String text, Long departmentId, List<Status> statuses, int limit)
+            throws ResponseStatusException {
+        if (text == null || text.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search text is required");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Long> ids = taskSearchIndex.search(text, departmentId, statuses, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, TaskSummaryDTO> tasks = taskRepository.findSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(TaskSummaryDTO::getId, Function.identity()));
+        // a task deleted after the index lookup is simply left out
+        return ids.stream().map(tasks::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
+    public long rebuildSearchIndex() {
+        return taskSearchIndex.rebuild();
+    }
+
+    @Transactional
     public void deleteTask(Long id) {
+        Optional<TaskSummaryDTO> task = taskRepository.findSummaryById(id);
         taskRepository.deleteById(id);
+        task.ifPresent(deleted -> {
+            changeOutbox.record(ChangeEntity.TASK, id, ChangeType.DELETED,
+                    Collections.singletonList(deleted.getDepartmentId()), deleted.getAssignedUserIds());
+            if (deleted.getDepartmentId() != null) {
+                taskTombstones.removedFromDepartment(id, deleted.getDepartmentId());
+            }
+            taskTombstones.removedFromAssignees(id, deleted.getAssignedUserIds());
+            listingVersions.departmentTasksChanged(Collections.singletonList(deleted.getDepartmentId()));
+            listingVersions.assignedTasksChanged(deleted.getAssignedUserIds());
+        });
+    }
+
+    private <T> List<T> departmentTasks(List<T> tasks, Long departmentId) throws ResponseStatusException {
+        if (tasks.isEmpty() && !departmentRepository.existsById(departmentId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+        }
+        return tasks;
+    }
+
+    private <T> List<T> userTasks(List<T> tasks, Long userId) throws ResponseStatusException {
+        if (tasks.isEmpty() && !userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        return tasks;
+    }
+
+    private List<Long> userIds(List<User> users) {
+        return users == null ? List.of() : users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads one page after the position encoded in the cursor. One extra row is
+     * fetched to learn whether another page follows; for DUE_DATE the undated
+     * tasks are appended once the dated ones run out.
+     */
+    private CursorPageDTO<TaskSummaryDTO> scrollTasks(String cursor, int limit, TaskSortKey sort,
+            KeysetQuery byUpdatedAt, KeysetQuery byDueDate, IdKeysetQuery withoutDueDate)
+            throws ResponseStatusException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TaskCursor position = cursor == null ? TaskCursor.first(sort) : TaskCursor.decode(cursor, sort);
+
+        List<TaskSummaryDTO> tasks;
+        if (sort == TaskSortKey.UPDATED_AT) {
+            tasks = byUpdatedAt.find(position.getValue(), position.getId(), Limit.of(limit + 1));
+        } else if (position.isWithoutValue()) {
+            tasks = withoutDueDate.find(position.getId(), Limit.of(limit + 1));
+        } else {
+            tasks = byDueDate.find(position.getValue(), position.getId(), Limit.of(limit + 1));
+            if (tasks.size() <= limit) {
+                tasks = new ArrayList<>(tasks);
+                tasks.addAll(withoutDueDate.find(0L, Limit.of(limit + 1 - tasks.size())));
+            }
+        }
+
+        if (tasks.size() <= limit) {
+            return new CursorPageDTO<>(tasks, null);
+        }
+        List<TaskSummaryDTO> page = tasks.subList(0, limit);
+        return new CursorPageDTO<>(page, TaskCursor.after(sort, page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Fills in the assignees of a whole page with one aggregate query.
+     */
+    private CursorPageDTO<TaskSummaryDTO> withAssigneeIds(CursorPageDTO<TaskSummaryDTO> page) {
+        fillAssigneeIds(page.getItems());
+        return page;
+    }
+
+    void fillAssigneeIds(List<TaskSummaryDTO> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> assigneeIds = new HashMap<>();
+        List<Long> taskIds = tasks.stream().map(TaskSummaryDTO::getId).collect(Collectors.toList());
+        for (TaskAssigneeIds row : taskRepository.findAssigneeIdsByTaskIds(taskIds)) {
+            assigneeIds.put(row.getTaskId(), AggregatedIds.parse(row.getAssigneeIds()));
+        }
+        tasks.forEach(task -> task.setAssignedUserIds(assigneeIds.getOrDefault(task.getId(), new ArrayList<>())));
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery {
+        List<TaskSummaryDTO> find(LocalDateTime value, Long id, Limit limit);
+    }
+
+    @FunctionalInterface
+    private interface IdKeysetQuery {
+        List<TaskSummaryDTO> find(Long id, Limit limit);
     }
 
     public TaskSummaryDTO toTaskSummaryDTO(Task task) {
@@ -143,12 +456,18 @@ public class TaskService {
         dto.setDueDate(task.getDueDate());
         dto.setPriority(task.getPriority());
         dto.setStatus(task.getStatus());
-        dto.setDepartmentId(task.getDepartment().getId());
-        dto.setCreatedById(task.getCreatedBy().getId());
-        dto.setAssignedUserIds(task.getAssignedUsers().stream().map(User::getId).collect(Collectors.toList()));
+        dto.setDepartmentId(task.getDepartment() != null ? task.getDepartment().getId() : null);
+        dto.setCreatedById(task.getCreatedBy() != null ? task.getCreatedBy().getId() : null);
+        dto.setAssignedUserIds(userIds(task.getAssignedUsers()));
+        dto.setVersion(task.getVersion());
         return dto;
     }
 
+    public TaskDTO toTaskDTO(TaskSummaryDTO summary) {
+        return new TaskDTO(summary.getId(), summary.getTitle(), summary.getDescription(), summary.getDueDate(),
+                summary.getPriority(), summary.getStatus(), summary.getDepartmentId(), summary.getCreatedById());
+    }
+
     public TaskDTO toTaskDTO(Task task) {
         TaskDTO dto = new TaskDTO();
         dto.setId(task.getId());
@@ -0,0 +1,148 @@
+package com.ironhack.taskithub.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.dto.TaskSyncDTO;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.service.TaskTombstones.Tombstone;
+
+/**
+ * TaskSyncService
+ *
+ * Delta sync of a department's or an assignee's task list. Changed tasks are
+ * read by (updatedAt, id) and removals from TaskTombstones by (removedAt, id),
+ * both on the indexes the keyset listings use, and merged in time order.
+ *
+ * Timestamps are taken when a row is written but become visible at commit
+ * (and later still on the replica), so a row can show up behind a position a
+ * client has already passed. Once a client has caught up, its watermark is
+ * therefore set back by taskithub.sync.skew-horizon from the start of the
+ * sync; the next call repeats what changed inside that window, which clients
+ * apply idempotently, and misses nothing committed within it.
+ */
+@Service
+public class TaskSyncService {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskTombstones taskTombstones;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Value("${taskithub.sync.skew-horizon:30s}")
+    private Duration skewHorizon;
+
+    /**
+     * @param watermark the watermark of the previous call, null for a full sync
+     * @throws ResponseStatusException GONE if the watermark is older than the
+     *         retained tombstones; the client has to drop its copy and sync
+     *         without a watermark
+     */
+    public TaskSyncDTO sync(Long departmentId, Long assigneeId, String watermark, int limit)
+            throws ResponseStatusException {
+        if ((departmentId == null) == (assigneeId == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either departmentId or assigneeId is required");
+        }
+        if (limit < 1 || limit > TaskService.MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + TaskService.MAX_PAGE_SIZE);
+        }
+        String scope;
+        Long scopeId;
+        if (departmentId != null) {
+            if (!departmentRepository.existsById(departmentId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Department not found");
+            }
+            scope = ListingVersions.DEPARTMENT_TASKS;
+            scopeId = departmentId;
+        } else {
+            if (!userRepository.existsById(assigneeId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            }
+            scope = ListingVersions.ASSIGNED_TASKS;
+            scopeId = assigneeId;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SyncWatermark from = watermark == null
+                ? SyncWatermark.initial(scope, scopeId, now.minus(skewHorizon))
+                : SyncWatermark.decode(watermark, scope, scopeId);
+        if (from.getRemovedAt().isBefore(taskTombstones.retainedSince(now))) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Watermark expired, sync without one");
+        }
+        LocalDateTime startedAt = from.getStartedAt() != null ? from.getStartedAt() : now;
+
+        List<TaskSummaryDTO> changes = departmentId != null
+                ? taskRepository.findByDepartmentUpdatedAtKeyset(departmentId, from.getChangedAt(),
+                        from.getChangedId(), Limit.of(limit + 1))
+                : taskRepository.findByAssigneeUpdatedAtKeyset(assigneeId, from.getChangedAt(),
+                        from.getChangedId(), Limit.of(limit + 1));
+        List<Tombstone> removals = taskTombstones.findAfter(scope, scopeId, from.getRemovedAt(),
+                from.getRemovedId(), limit + 1);
+
+        // the later of a change and a removal of the same task wins
+        Map<Long, TaskSummaryDTO> changed = new LinkedHashMap<>();
+        Set<Long> removed = new LinkedHashSet<>();
+        LocalDateTime changedAt = from.getChangedAt();
+        Long changedId = from.getChangedId();
+        LocalDateTime removedAt = from.getRemovedAt();
+        Long removedId = from.getRemovedId();
+        int c = 0;
+        int r = 0;
+        for (int taken = 0; taken < limit && (c < changes.size() || r < removals.size()); taken++) {
+            boolean removalFirst = r < removals.size() && (c == changes.size()
+                    || !removals.get(r).removedAt().isAfter(changes.get(c).getUpdatedAt()));
+            if (removalFirst) {
+                Tombstone removal = removals.get(r++);
+                changed.remove(removal.taskId());
+                removed.add(removal.taskId());
+                removedAt = removal.removedAt();
+                removedId = removal.id();
+            } else {
+                TaskSummaryDTO change = changes.get(c++);
+                removed.remove(change.getId());
+                changed.put(change.getId(), change);
+                changedAt = change.getUpdatedAt();
+                changedId = change.getId();
+            }
+        }
+
+        boolean hasMore = c < changes.size() || r < removals.size();
+        SyncWatermark next;
+        if (hasMore) {
+            next = new SyncWatermark(scope, scopeId, changedAt, changedId, removedAt, removedId, startedAt);
+        } else {
+            LocalDateTime settled = startedAt.minus(skewHorizon);
+            next = new SyncWatermark(scope, scopeId, settled, 0L, settled, 0L, null);
+        }
+        List<TaskSummaryDTO> changedTasks = new ArrayList<>(changed.values());
+        taskService.fillAssigneeIds(changedTasks);
+        return new TaskSyncDTO(changedTasks, new ArrayList<>(removed), next.encode(), hasMore);
+    }
+}
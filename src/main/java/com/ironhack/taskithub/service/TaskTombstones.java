@@ -0,0 +1,107 @@
+package com.ironhack.taskithub.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ironhack.taskithub.datasource.DbTime;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * TaskTombstones
+ *
+ * Records of tasks leaving a department's or an assignee's task list, so
+ * that GET /tasks/sync can tell a client what to drop. They use the scopes
+ * of ListingVersions and are kept for taskithub.sync.tombstone-retention; a
+ * client whose watermark is older has to sync from scratch.
+ */
+@Component
+@Slf4j
+public class TaskTombstones {
+    private static final String INSERT = "insert into task_tombstone (scope, scope_id, task_id, removed_at) "
+            + "values (?, ?, ?, ?)";
+    private static final String SELECT_AFTER = "select id, task_id, removed_at from task_tombstone "
+            + "where scope = ? and scope_id = ? and (removed_at > ? or (removed_at = ? and id > ?)) "
+            + "order by removed_at, id limit ?";
+    private static final String PRUNE = "delete from task_tombstone where removed_at < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${taskithub.sync.tombstone-retention:30d}")
+    private Duration retention;
+
+    record Tombstone(Long id, Long taskId, LocalDateTime removedAt) {
+    }
+
+    public void removedFromDepartment(Long taskId, Long departmentId) {
+        record(ListingVersions.DEPARTMENT_TASKS, taskId, Collections.singletonList(departmentId));
+    }
+
+    public void removedFromAssignees(Long taskId, Collection<Long> userIds) {
+        record(ListingVersions.ASSIGNED_TASKS, taskId, userIds);
+    }
+
+    /**
+     * One batch for many tasks leaving the same assignee.
+     */
+    public void removedFromAssignee(Collection<Long> taskIds, Long userId) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        Timestamp removedAt = DbTime.timestamp();
+        jdbcTemplate.batchUpdate(INSERT, taskIds, taskIds.size(), (ps, taskId) -> {
+            ps.setString(1, ListingVersions.ASSIGNED_TASKS);
+            ps.setLong(2, userId);
+            ps.setLong(3, taskId);
+            ps.setTimestamp(4, removedAt);
+        });
+    }
+
+    List<Tombstone> findAfter(String scope, Long scopeId, LocalDateTime removedAt, Long id, int limit) {
+        Timestamp after = Timestamp.valueOf(removedAt);
+        return jdbcTemplate.query(SELECT_AFTER,
+                (rs, row) -> new Tombstone(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).toLocalDateTime()),
+                scope, scopeId, after, after, id, limit);
+    }
+
+    /**
+     * The oldest removal still on record; older watermarks may have missed some.
+     */
+    LocalDateTime retainedSince(LocalDateTime now) {
+        return now.minus(retention);
+    }
+
+    @Scheduled(fixedDelayString = "${taskithub.sync.prune-interval-ms:3600000}")
+    public void prune() {
+        int pruned = jdbcTemplate.update(PRUNE, Timestamp.valueOf(retainedSince(LocalDateTime.now())));
+        if (pruned > 0) {
+            log.info("Pruned {} task tombstones older than {}", pruned, retention);
+        }
+    }
+
+    private void record(String scope, Long taskId, Collection<Long> scopeIds) {
+        List<Long> ids = scopeIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp removedAt = DbTime.timestamp();
+        jdbcTemplate.batchUpdate(INSERT, ids, ids.size(), (ps, scopeId) -> {
+            ps.setString(1, scope);
+            ps.setLong(2, scopeId);
+            ps.setLong(3, taskId);
+            ps.setTimestamp(4, removedAt);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.ironhack.taskithub.service;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * UniqueConstraints
+ *
+ * Uniqueness of usernames and department names is enforced by the unique
+ * constraints of the schema (see db/migration) rather than by an exists query
+ * before every write; that saves a round trip and also holds when two
+ * requests race for the same name.
+ */
+final class UniqueConstraints {
+    static final String USER_USERNAME = "uk_user_username";
+    static final String DEPARTMENT_NAME = "uk_department_name";
+
+    private UniqueConstraints() {
+    }
+
+    /**
+     * Runs the write, which has to reach the database (flush) before it
+     * returns.
+     *
+     * @throws ResponseStatusException CONFLICT with the given reason if the
+     *                                 write violates the constraint
+     */
+    static <T> T write(Supplier<T> write, String constraint, String conflict) throws ResponseStatusException {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            // the drivers name the violated constraint (or its index) in the message
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (cause != null && cause.toLowerCase(Locale.ROOT).contains(constraint)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, conflict);
+            }
+            throw e;
+        }
+    }
+}
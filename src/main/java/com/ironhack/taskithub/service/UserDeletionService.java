@@ -0,0 +1,266 @@
+package com.ironhack.taskithub.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ironhack.taskithub.datasource.DbTime;
+import com.ironhack.taskithub.dto.UserDeletionJobDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.enums.UserDeletionStatus;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * UserDeletionService
+ *
+ * Deletes a user without loading its tasks: the user's assignments are moved
+ * to a successor (or dropped) and created_by is repointed (or cleared) with
+ * set-based statements, taskithub.users.delete.batch-size tasks at a time.
+ * Other assignees of the tasks keep their assignments.
+ *
+ * A user with more task references than
+ * taskithub.users.delete.background-threshold is deleted by a background job
+ * instead, one transaction per batch, so no transaction grows with the user's
+ * history. Jobs are kept in memory for taskithub.users.delete.job-retention
+ * after they finish and are only visible on the node running them.
+ */
+@Service
+@Slf4j
+public class UserDeletionService {
+    private static final String COUNT_ASSIGNED = "select count(*) from task_assigned_users where user_id = ?";
+    private static final String COUNT_CREATED = "select count(*) from task where created_by_id = ?";
+    private static final String ASSIGNED_TASK_IDS = "select task_id from task_assigned_users where user_id = ? "
+            + "order by task_id limit ?";
+    private static final String CREATED_TASK_IDS = "select id from task where created_by_id = ? order by id limit ?";
+    private static final String ASSIGN_SUCCESSOR = "insert into task_assigned_users (task_id, user_id) "
+            + "select a.task_id, :successorId from task_assigned_users a "
+            + "where a.user_id = :userId and a.task_id in (:taskIds) and not exists "
+            + "(select 1 from task_assigned_users b where b.task_id = a.task_id and b.user_id = :successorId)";
+    private static final String UNASSIGN = "delete from task_assigned_users "
+            + "where user_id = :userId and task_id in (:taskIds)";
+    private static final String TOUCH = "update task set updated_at = :updatedAt, version = version + 1 "
+            + "where id in (:taskIds)";
+    private static final String REPOINT_CREATOR = "update task set created_by_id = :successorId, "
+            + "updated_at = :updatedAt, version = version + 1 where id in (:taskIds)";
+    private static final String REMOVE_SUPERVISOR = "delete from task_supervisors where supervisors_id = ?";
+    private static final String REMOVE_MANAGER = "update task set manager_id = null where manager_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private ListingVersions listingVersions;
+
+    @Autowired
+    private TaskTombstones taskTombstones;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Value("${taskithub.users.delete.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${taskithub.users.delete.background-threshold:10000}")
+    private long backgroundThreshold;
+
+    @Value("${taskithub.users.delete.job-retention:1h}")
+    private Duration jobRetention;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final Long userId;
+        private final Long successorId;
+        private final long total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong processed = new AtomicLong();
+        private volatile UserDeletionStatus status = UserDeletionStatus.RUNNING;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(Long userId, Long successorId, long total) {
+            this.userId = userId;
+            this.successorId = successorId;
+            this.total = total;
+        }
+
+        private void finish(UserDeletionStatus status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private UserDeletionJobDTO toDTO() {
+            return new UserDeletionJobDTO(id, userId, successorId, status, total, processed.get(), error, startedAt,
+                    finishedAt);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Deletes the user in the caller's transaction, or hands it to a
+     * background job if the user has too many tasks for one.
+     *
+     * @param successorId user taking over the assignments and created tasks,
+     *                    null to drop them
+     * @return the job, empty if the user was deleted right away
+     * @throws ResponseStatusException CONFLICT if a deletion of the user is
+     *                                 already running
+     */
+    public Optional<UserDeletionJobDTO> delete(Long userId, Long successorId) throws ResponseStatusException {
+        long total = jdbcTemplate.queryForObject(COUNT_ASSIGNED, Long.class, userId)
+                + jdbcTemplate.queryForObject(COUNT_CREATED, Long.class, userId);
+        if (total <= backgroundThreshold) {
+            detachAll(userId, successorId);
+            remove(userId);
+            return Optional.empty();
+        }
+
+        jobs.values().removeIf(job -> job.finishedAt != null
+                && job.finishedAt.isBefore(LocalDateTime.now().minus(jobRetention)));
+        if (jobs.values().stream().anyMatch(running -> running.userId.equals(userId)
+                && running.status == UserDeletionStatus.RUNNING)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "User deletion already running");
+        }
+        Job job = new Job(userId, successorId, total);
+        // starts once the request has committed, a rolled back request leaves no job behind
+        AfterCommit.run(() -> {
+            jobs.put(job.id, job);
+            workers.execute(() -> run(job));
+        });
+        return Optional.of(job.toDTO());
+    }
+
+    public UserDeletionJobDTO getJob(String id) throws ResponseStatusException {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User deletion job not found");
+        }
+        return job.toDTO();
+    }
+
+    private void run(Job job) {
+        log.info("Deleting user {} in the background, {} task references", job.userId, job.total);
+        try {
+            int detached;
+            do {
+                detached = transactionTemplate.execute(status -> detachBatch(job.userId, job.successorId));
+                job.processed.addAndGet(detached);
+            } while (detached > 0);
+            // whatever got assigned since the last batch goes with the user
+            transactionTemplate.executeWithoutResult(status -> {
+                job.processed.addAndGet(detachAll(job.userId, job.successorId));
+                remove(job.userId);
+            });
+            job.finish(UserDeletionStatus.COMPLETED, null);
+            log.info("Deleted user {}, {} task references detached", job.userId, job.processed.get());
+        } catch (RuntimeException e) {
+            log.error("Deleting user {} failed after {} task references", job.userId, job.processed.get(), e);
+            job.finish(UserDeletionStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private long detachAll(Long userId, Long successorId) {
+        long total = 0;
+        int detached;
+        while ((detached = detachBatch(userId, successorId)) > 0) {
+            total += detached;
+        }
+        return total;
+    }
+
+    /**
+     * Detaches the next batch of tasks from the user, assignments first.
+     *
+     * @return the number of tasks detached, 0 once there are none left
+     */
+    private int detachBatch(Long userId, Long successorId) {
+        Timestamp updatedAt = DbTime.timestamp();
+        List<Long> assigned = jdbcTemplate.queryForList(ASSIGNED_TASK_IDS, Long.class, userId, batchSize);
+        if (!assigned.isEmpty()) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId)
+                    .addValue("successorId", successorId).addValue("taskIds", assigned)
+                    .addValue("updatedAt", updatedAt);
+            if (successorId != null) {
+                namedParameterJdbcTemplate.update(ASSIGN_SUCCESSOR, parameters);
+            }
+            namedParameterJdbcTemplate.update(UNASSIGN, parameters);
+            namedParameterJdbcTemplate.update(TOUCH, parameters);
+            taskTombstones.removedFromAssignee(assigned, userId);
+            listingVersions.departmentTasksChanged(taskRepository.findDepartmentIdsByIds(assigned));
+            listingVersions.assignedTasksChanged(successorId != null ? List.of(userId, successorId) : List.of(userId));
+            changeOutbox.recordAll(ChangeEntity.TASK, assigned, ChangeType.UPDATED,
+                    assigned.stream().collect(Collectors.toMap(Function.identity(), taskId -> List.of(userId))));
+            return assigned.size();
+        }
+
+        List<Long> created = jdbcTemplate.queryForList(CREATED_TASK_IDS, Long.class, userId, batchSize);
+        if (!created.isEmpty()) {
+            namedParameterJdbcTemplate.update(REPOINT_CREATOR, new MapSqlParameterSource("successorId", successorId)
+                    .addValue("updatedAt", updatedAt).addValue("taskIds", created));
+            listingVersions.departmentTasksChanged(taskRepository.findDepartmentIdsByIds(created));
+            changeOutbox.recordAll(ChangeEntity.TASK, created, ChangeType.UPDATED, Map.of());
+        }
+        return created.size();
+    }
+
+    private void remove(Long userId) {
+        jdbcTemplate.update(REMOVE_SUPERVISOR, userId);
+        jdbcTemplate.update(REMOVE_MANAGER, userId);
+        userRepository.findById(userId).ifPresent(user -> {
+            userRepository.delete(user);
+            userDetailsCache.evict(user.getUsername());
+        });
+        referenceDataCache.evictUser(userId);
+        changeOutbox.record(ChangeEntity.USER, userId, ChangeType.DELETED);
+    }
+}
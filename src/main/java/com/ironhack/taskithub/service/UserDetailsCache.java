@@ -0,0 +1,100 @@
+package com.ironhack.taskithub.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ironhack.taskithub.enums.ChangeEntity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * UserDetailsCache
+ *
+ * Username to login details (password hash and authorities) for
+ * loadUserByUsername, so repeated logins skip the user query. Bounded by
+ * taskithub.users.details-cache.maximum-size; entries also expire after
+ * taskithub.users.details-cache.ttl. Unknown usernames are not cached.
+ * Changes made on this node evict their username; a user change on any node
+ * reaches every node through the change outbox, which names the user by id
+ * only, so that empties the whole cache. Keys are
+ * lower-cased, like the collation of user.username compares them, so a login
+ * typed in another case shares the entry that evictions remove.
+ *
+ * Every call returns a new UserDetails: Spring Security erases the password
+ * of the one it authenticated, a shared instance would lose it for the next
+ * login. Hits and misses are published as the cache.* metrics tagged
+ * cache=user-details.
+ */
+@Component
+public class UserDetailsCache implements ChangeListener {
+    private final Cache<String, Login> logins;
+
+    private record Login(String username, String password, List<GrantedAuthority> authorities) {
+        UserDetails toUserDetails() {
+            return new org.springframework.security.core.userdetails.User(username, password, authorities);
+        }
+    }
+
+    public UserDetailsCache(MeterRegistry meterRegistry,
+            @Value("${taskithub.users.details-cache.maximum-size:10000}") long maximumSize,
+            @Value("${taskithub.users.details-cache.ttl:10m}") Duration ttl) {
+        this.logins = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, logins, "user-details");
+    }
+
+    /**
+     * Returns the cached details, loading them with the loader on a miss.
+     *
+     * @param loader builds the details of a username, empty if there is no
+     *               such user
+     */
+    public Optional<UserDetails> get(String username, Function<String, Optional<UserDetails>> loader) {
+        // a load runs atomically with evictions of the same username, a change committing meanwhile
+        // is either seen by the load or evicts what it cached
+        Login login = logins.get(key(username), key -> loader.apply(username)
+                .map(details -> new Login(details.getUsername(), details.getPassword(),
+                        List.copyOf(details.getAuthorities())))
+                .orElse(null));
+        return Optional.ofNullable(login).map(Login::toUserDetails);
+    }
+
+    /**
+     * Forgets the username now and again once the surrounding transaction
+     * has committed, so a login racing the change cannot cache the old
+     * password or role.
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = key(username);
+        logins.invalidate(key);
+        AfterCommit.run(() -> logins.invalidate(key));
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        if (events.stream().anyMatch(event -> event.entity() == ChangeEntity.USER)) {
+            logins.invalidateAll();
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,9 +1,8 @@
 package com.ironhack.taskithub.service;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +13,13 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.ironhack.taskithub.dto.UserDTO;
+import com.ironhack.taskithub.dto.UserDeletionJobDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
 import com.ironhack.taskithub.enums.Role;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
@@ -49,38 +52,44 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        List<User> users = userRepository.findByUsername(username);
+    @Autowired
+    private ReferenceResolver referenceResolver;
 
-        if (users == null || users.isEmpty()) {
-            log.error("User not found");
-            throw new UsernameNotFoundException("User not found");
-        } else {
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
 
-            User user = users.get(0);
+    @Autowired
+    private UserDeletionService userDeletionService;
 
-            Collection<SimpleGrantedAuthority> authorities = new ArrayList<>();
-            authorities.add(new SimpleGrantedAuthority(user.getRole().name()));
+    @Autowired
+    private ChangeOutbox changeOutbox;
 
-            return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-                    authorities);
-        }
+    @Autowired
+    private UserDetailsCache userDetailsCache;
 
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, key -> userRepository.findByUsername(key).map(user ->
+                new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
+                        List.of(new SimpleGrantedAuthority(user.getRole().name())))))
+                .orElseThrow(() -> {
+                    log.error("User not found");
+                    return new UsernameNotFoundException("User not found");
+                });
     }
 
+    @Transactional
     public UserDTO createUser(UserDTO userDTO) {
         User user = toUser(userDTO);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return toUserDTO(userRepository.save(user));
+        User savedUser = save(user);
+        changeOutbox.record(ChangeEntity.USER, savedUser.getId(), ChangeType.CREATED);
+        userDetailsCache.evict(savedUser.getUsername());
+        return toUserDTO(savedUser);
     }
 
+    @Transactional
     public User createUser(User user, Long departmentId, List<Long> taskIds) throws ResponseStatusException {
-        if (userRepository.existsByUsername(user.getUsername())) {
-            log.error("Username already exists");
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username already exists");
-        }
-
         if (departmentId != null) {
             Department department = departmentRepository.findById(departmentId)
                     .orElseThrow(() -> {
@@ -91,16 +100,12 @@ public class UserService implements UserDetailsService {
         }
 
         if (taskIds != null) {
-            List<Task> tasks = taskIds.stream()
-                    .map(taskId -> taskRepository.findById(taskId)
-                            .orElseThrow(() -> {
-                                log.error("Task not found");
-                                return new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found");
-                            }))
-                    .collect(Collectors.toList());
-            user.setTasks(tasks);
+            user.setTasks(referenceResolver.resolveAll(taskRepository, taskIds, "Task"));
         }
-        return userRepository.save(user);
+        User savedUser = save(user);
+        changeOutbox.record(ChangeEntity.USER, savedUser.getId(), ChangeType.CREATED);
+        userDetailsCache.evict(savedUser.getUsername());
+        return savedUser;
     }
 
     // to be able to initialize admin user upon server startup
@@ -109,33 +114,44 @@ public class UserService implements UserDetailsService {
     }
 
     public UserDTO getUserByUsername(String username) throws ResponseStatusException {
-        List<User> users = userRepository.findByUsername(username);
+        List<UserDTO> users = userRepository.findUserDTOsByUsername(username);
         if (users.isEmpty()) {
             log.error("User not found");
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
-        User user = users.get(0);
-        return toUserDTO(user);
+        return users.get(0);
     }
 
     public UserDTO getUserById(Long id) throws ResponseStatusException {
-        User user = userRepository.findById(id)
+        return userRepository.findUserDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return toUserDTO(user);
     }
 
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream().map(this::toUserDTO).collect(Collectors.toList());
+        return userRepository.findAllUserDTOs();
     }
 
-    public UserDTO updateUserFromDTO(Long id, UserDTO userDTO) {
-        User updatedUser = updateUser(id, userDTO);
+    @Transactional
+    public UserDTO updateUserFromDTO(Long id, UserDTO userDTO, Long expectedVersion) {
+        User updatedUser = updateUser(id, userDTO, expectedVersion);
         return toUserDTO(updatedUser);
     }
 
+    @Transactional
     public User updateUser(Long id, UserDTO userDTO) throws ResponseStatusException {
+        return updateUser(id, userDTO, null);
+    }
+
+    /**
+     * @param expectedVersion the version the change is based on, null to overwrite whatever is stored
+     * @throws ResponseStatusException PRECONDITION_FAILED if the user has changed since that version
+     */
+    @Transactional
+    public User updateUser(Long id, UserDTO userDTO, Long expectedVersion) throws ResponseStatusException {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        OptimisticLocking.checkVersion(existingUser, expectedVersion, "User");
+        String previousUsername = existingUser.getUsername();
 
         if (userDTO.getName() != null) {
             existingUser.setName(userDTO.getName());
@@ -161,38 +177,57 @@ public class UserService implements UserDetailsService {
         }
 
         if (userDTO.getTaskIds() != null) {
-            List<Task> tasks = userDTO.getTaskIds().stream()
-                    .map(taskId -> taskRepository.findById(taskId)
-                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found")))
-                    .collect(Collectors.toList());
-            existingUser.setTasks(tasks);
+            existingUser.setTasks(referenceResolver.resolveAll(taskRepository, userDTO.getTaskIds(), "Task"));
         }
 
         existingUser.setUpdatedAt(LocalDateTime.now());
 
-        return userRepository.save(existingUser);
+        User savedUser = save(existingUser);
+        changeOutbox.record(ChangeEntity.USER, id, ChangeType.UPDATED);
+        referenceDataCache.evictUser(id);
+        userDetailsCache.evict(previousUsername);
+        userDetailsCache.evict(savedUser.getUsername());
+        return savedUser;
     }
 
-    public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        // to automatically reassign tasks to another user if the user is deleted. setting to "null"
-
-        List<Task> userTasks = taskRepository.findByAssignedUsers_Id(id); // Fetch the asssigned-to tasks
-        for (Task task : userTasks) {
-            task.setAssignedUsers(null);
+    /**
+     * Deletes the user, see UserDeletionService.
+     *
+     * @param successorId user taking over the assignments and created tasks,
+     *                    null to drop them
+     * @return the background job deleting the user, empty if it was deleted
+     *         right away
+     */
+    @Transactional
+    public Optional<UserDeletionJobDTO> deleteUser(Long id, Long successorId) throws ResponseStatusException {
+        if (!userRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
-
-        List<Task> createdTasks = taskRepository.findByCreatedBy_Id(id); // Fetch the created-by tasks
-        for (Task task : createdTasks) {
-            task.setCreatedBy(null);
+        if (successorId != null) {
+            if (successorId.equals(id)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Successor must be another user");
+            }
+            if (!userRepository.existsById(successorId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Successor not found");
+            }
         }
+        return userDeletionService.delete(id, successorId);
+    }
 
-        taskRepository.saveAll(userTasks);
-        taskRepository.saveAll(createdTasks);
+    public UserDeletionJobDTO getDeletionJob(String jobId) throws ResponseStatusException {
+        return userDeletionService.getJob(jobId);
+    }
 
-        userRepository.delete(user);
+    /**
+     * Saves and flushes the user, a taken username is reported by the
+     * database's unique constraint.
+     */
+    private User save(User user) throws ResponseStatusException {
+        return UniqueConstraints.write(() -> {
+            User saved = userRepository.save(user);
+            userRepository.flush();
+            return saved;
+        }, UniqueConstraints.USER_USERNAME, "Username already exists");
     }
 
     public UserDTO toUserDTO(User user) {
@@ -206,6 +241,7 @@ public class UserService implements UserDetailsService {
         dto.setUpdatedAt(user.getUpdatedAt());
         dto.setDepartmentId(user.getDepartment() != null ? user.getDepartment().getId() : null);
         dto.setTaskIds(user.getTasks().stream().map(Task::getId).collect(Collectors.toList()));
+        dto.setVersion(user.getVersion());
         return dto;
     }
 
@@ -0,0 +1,4 @@
+-- every node reads every row from its own position now (service.ChangeOutboxRelay): rows are pruned by age
+-- instead of being deleted on delivery, and failed deliveries are counted per node
+alter table change_outbox drop column attempts;
+create index idx_change_outbox_created_at on change_outbox (created_at);
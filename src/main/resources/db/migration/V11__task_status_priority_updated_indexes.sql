@@ -0,0 +1,7 @@
+-- The status and priority filters of GET /tasks/search only led an index paired
+-- with due_date (V2, V3); the default updated_at order had to sort every match.
+
+-- status filter in updatedAt keyset pages
+create index idx_task_status_updated on task (status, updated_at);
+-- priority filter in updatedAt keyset pages
+create index idx_task_priority_updated on task (priority, updated_at);
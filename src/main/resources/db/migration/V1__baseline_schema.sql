@@ -0,0 +1,58 @@
+-- Baseline: the schema Hibernate used to generate from the entities.
+
+create table department (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    updated_at datetime(6),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table user (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    updated_at datetime(6),
+    name varchar(255),
+    username varchar(255),
+    password varchar(255),
+    role enum ('ADMIN','USER'),
+    department_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table task (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    updated_at datetime(6),
+    title varchar(255),
+    description varchar(255),
+    due_date datetime(6),
+    priority enum ('HIGH','LOW','MEDIUM'),
+    status enum ('COMPLETED','IN_PROGRESS','NOT_STARTED'),
+    created_by_id bigint,
+    department_id bigint,
+    manager_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table task_assigned_users (
+    task_id bigint not null,
+    user_id bigint not null
+) engine=InnoDB;
+
+create table task_supervisors (
+    task_id bigint not null,
+    supervisors_id bigint not null
+) engine=InnoDB;
+
+alter table user add constraint fk_user_department foreign key (department_id) references department (id);
+
+alter table task add constraint fk_task_created_by foreign key (created_by_id) references user (id);
+alter table task add constraint fk_task_department foreign key (department_id) references department (id);
+alter table task add constraint fk_task_manager foreign key (manager_id) references user (id);
+
+alter table task_assigned_users add constraint fk_task_assigned_users_task foreign key (task_id) references task (id);
+alter table task_assigned_users add constraint fk_task_assigned_users_user foreign key (user_id) references user (id);
+
+alter table task_supervisors add constraint fk_task_supervisors_task foreign key (task_id) references task (id);
+alter table task_supervisors add constraint fk_task_supervisors_user foreign key (supervisors_id) references user (id);
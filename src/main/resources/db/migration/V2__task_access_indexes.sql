@@ -0,0 +1,20 @@
+-- Indexes for the task access paths. InnoDB appends the primary key to every
+-- secondary index, so (x, updated_at) also serves the (updated_at, id) keyset order.
+
+-- department listings filtered by status and due date, and department overviews
+create index idx_task_department_status_due on task (department_id, status, due_date);
+-- department keyset pages by updatedAt
+create index idx_task_department_updated on task (department_id, updated_at);
+-- created-by listings and keyset pages
+create index idx_task_created_by_updated on task (created_by_id, updated_at);
+-- global keyset pages and due-date filters
+create index idx_task_updated_at on task (updated_at);
+create index idx_task_status_due on task (status, due_date);
+create index idx_task_due_date on task (due_date);
+
+-- assignees of a task, and the reverse: tasks assigned to a user
+create index idx_task_assigned_users_task on task_assigned_users (task_id, user_id);
+create index idx_task_assigned_users_user on task_assigned_users (user_id, task_id);
+
+-- login and username lookups; also enforces what UserService checks with existsByUsername
+alter table user add constraint uk_user_username unique (username);
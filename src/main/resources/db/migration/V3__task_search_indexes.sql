@@ -0,0 +1,9 @@
+-- Indexes for GET /tasks/search: every filter leads an index, paired with the
+-- due_date sort where V2 only had the updated_at one.
+
+-- department filter sorted by due date (idx_task_department_status_due needs the status)
+create index idx_task_department_due on task (department_id, due_date);
+-- created-by filter sorted by due date
+create index idx_task_created_by_due on task (created_by_id, due_date);
+-- priority filter, alone or with a due date range
+create index idx_task_priority_due on task (priority, due_date);
@@ -0,0 +1,4 @@
+-- optimistic locking (BaseEntity.version): every update checks and increments the version it read
+alter table department add column version bigint not null default 0;
+alter table user add column version bigint not null default 0;
+alter table task add column version bigint not null default 0;
@@ -0,0 +1,8 @@
+-- change counters behind the ETags of the task listings (see service.ListingVersions):
+-- one row per department / assignee, bumped by every write that changes the listing
+create table listing_version (
+    scope varchar(32) not null,
+    scope_id bigint not null,
+    version bigint not null,
+    primary key (scope, scope_id)
+) engine=InnoDB;
@@ -0,0 +1,12 @@
+-- tasks that left a department's or an assignee's list (deleted, moved, unassigned), served by
+-- GET /tasks/sync and pruned after taskithub.sync.tombstone-retention (see service.TaskTombstones)
+create table task_tombstone (
+    id bigint not null auto_increment,
+    scope varchar(32) not null,
+    scope_id bigint not null,
+    task_id bigint not null,
+    removed_at datetime(6) not null,
+    primary key (id),
+    index idx_task_tombstone_scope (scope, scope_id, removed_at),
+    index idx_task_tombstone_removed_at (removed_at)
+) engine=InnoDB;
@@ -0,0 +1,13 @@
+-- changes to tasks, users and departments, written in the transaction of the change and handed to the
+-- in-process listeners by service.ChangeOutboxRelay, which deletes each row once it has been delivered
+create table change_outbox (
+    id bigint not null auto_increment,
+    entity varchar(16) not null,
+    entity_id bigint not null,
+    change_type varchar(16) not null,
+    department_ids varchar(255),
+    user_ids text,
+    attempts int not null default 0,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
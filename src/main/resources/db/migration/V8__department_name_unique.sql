@@ -0,0 +1,3 @@
+-- department names are unique, enforced here instead of by an exists query before every insert and rename
+-- (see service.UniqueConstraints); duplicate names have to be resolved by hand before this runs
+alter table department add constraint uk_department_name unique (name);
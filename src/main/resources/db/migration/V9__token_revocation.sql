@@ -0,0 +1,9 @@
+-- access and refresh tokens revoked before they expire (POST /api/logout), loaded into memory by
+-- security.TokenRevocations and pruned once the token has expired anyway
+create table token_revocation (
+    jti varchar(64) not null,
+    expires_at datetime(6) not null,
+    revoked_at datetime(6) not null,
+    primary key (jti),
+    index idx_token_revocation_expires_at (expires_at)
+) engine=InnoDB;
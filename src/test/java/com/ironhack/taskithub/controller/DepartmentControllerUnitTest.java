@@ -1,8 +1,11 @@
 package com.ironhack.taskithub.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.dto.CursorPageDTO;
 import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
 import com.ironhack.taskithub.dto.DepartmentSummaryDTO;
+import com.ironhack.taskithub.enums.Status;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.service.DepartmentService;
 import org.junit.jupiter.api.BeforeEach;
@@ -114,7 +117,7 @@ class DepartmentControllerUnitTest {
         outputDTO.setId(1L);
         outputDTO.setName("HR Updated");
 
-        when(departmentService.updateDepartmentFromDTO(eq(1L), any(DepartmentDTO.class))).thenReturn(new Department());
+        when(departmentService.updateDepartmentFromDTO(eq(1L), any(DepartmentDTO.class), isNull())).thenReturn(new Department());
         when(departmentService.toDepartmentSummaryDTO(any(Department.class))).thenReturn(outputDTO);
 
         mockMvc.perform(put("/departments/{id}", 1L)
@@ -134,4 +137,30 @@ class DepartmentControllerUnitTest {
 
         verify(departmentService, times(1)).deleteDepartment(1L);
     }
+
+    @Test
+    void getDepartmentOverviews_overviewView_countsReturned() throws Exception {
+        DepartmentOverviewDTO overview = new DepartmentOverviewDTO();
+        overview.setId(1L);
+        overview.setName("HR");
+        overview.setTaskCount(3);
+        overview.getTasksByStatus().put(Status.COMPLETED, 3L);
+
+        when(departmentService.getDepartmentOverviews()).thenReturn(List.of(overview));
+
+        mockMvc.perform(get("/departments").param("view", "overview"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].taskCount").value(3))
+                .andExpect(jsonPath("$[0].tasksByStatus.COMPLETED").value(3));
+    }
+
+    @Test
+    void getDepartmentTaskIds_withCursor_pageReturned() throws Exception {
+        when(departmentService.getDepartmentTaskIds(1L, "10", 2)).thenReturn(new CursorPageDTO<>(List.of(11L, 12L), "12"));
+
+        mockMvc.perform(get("/departments/{id}/task-ids", 1L).param("limit", "2").param("cursor", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[1]").value(12))
+                .andExpect(jsonPath("$.nextCursor").value("12"));
+    }
 }
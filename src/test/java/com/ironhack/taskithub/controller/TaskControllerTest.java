@@ -11,6 +11,7 @@ import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
 import com.ironhack.taskithub.repository.UserRepository;
 import com.ironhack.taskithub.enums.Role;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,8 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -122,6 +125,35 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Test Task"));
     }
 
+    @Test
+    void getTasksByDepartment_unchangedListing_notModified() throws Exception {
+        String etag = mockMvc.perform(get("/tasks/department/" + testDepartment.getId())
+                .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/tasks/department/" + testDepartment.getId())
+                .header("Authorization", authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setTitle("Renamed Task");
+        mockMvc.perform(put("/tasks/" + testTask.getId())
+                .header("Authorization", authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/tasks/department/" + testDepartment.getId())
+                .header("Authorization", authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", Matchers.not(etag)))
+                .andExpect(jsonPath("$[0].title").value("Renamed Task"));
+    }
+
     @Test
     void getTasksCreatedByUser() throws Exception {
         mockMvc.perform(get("/tasks/created-by/" + testUser.getId())
@@ -135,6 +167,7 @@ public class TaskControllerTest {
         mockMvc.perform(get("/tasks/" + testTask.getId())
                 .header("Authorization", authToken))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
                 .andExpect(jsonPath("$.title").value("Test Task"));
     }
 
@@ -159,10 +192,93 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.title").value("Updated Task"));
     }
 
+    @Test
+    void updateTask_ifMatch_onlyCurrentVersionAccepted() throws Exception {
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setTitle("First edit");
+
+        mockMvc.perform(put("/tasks/" + testTask.getId())
+                .header("Authorization", authToken)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // a second editor still holding version 0
+        taskDTO.setTitle("Conflicting edit");
+        mockMvc.perform(put("/tasks/" + testTask.getId())
+                .header("Authorization", authToken)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/tasks/" + testTask.getId())
+                .header("Authorization", authToken))
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.title").value("First edit"));
+    }
+
+    @Test
+    void streamTaskEvents_taskUpdated_eventPushedAndReplayedAfterReconnect() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/tasks/events")
+                .header("Authorization", authToken)
+                .param("departmentId", testDepartment.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        updateTitle("Streamed title");
+        String events = awaitContent(stream, "Streamed title");
+        assertTrue(events.contains("event:UPDATED"));
+        String firstEventId = events.substring(events.indexOf("id:") + 3, events.indexOf('\n', events.indexOf("id:")));
+
+        updateTitle("Missed title");
+        MvcResult resumed = mockMvc.perform(get("/tasks/events")
+                .header("Authorization", authToken)
+                .header("Last-Event-ID", firstEventId)
+                .param("departmentId", testDepartment.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = awaitContent(resumed, "Missed title");
+        assertFalse(replayed.contains("Streamed title"));
+
+        MvcResult restarted = mockMvc.perform(get("/tasks/events")
+                .header("Authorization", authToken)
+                .header("Last-Event-ID", "unknown-7")
+                .param("assigneeId", testUser.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(restarted, "event:RESET");
+    }
+
     @Test
     void deleteTask() throws Exception {
         mockMvc.perform(delete("/tasks/" + testTask.getId())
                 .header("Authorization", authToken))
                 .andExpect(status().isNoContent());
     }
+
+    private void updateTitle(String title) throws Exception {
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setTitle(title);
+        taskDTO.setDepartmentId(testDepartment.getId());
+        mockMvc.perform(put("/tasks/" + testTask.getId())
+                .header("Authorization", authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(taskDTO)))
+                .andExpect(status().isOk());
+    }
+
+    // events are written by the hub's sender threads, not by the request
+    private String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
 }
@@ -1,10 +1,21 @@
 package com.ironhack.taskithub.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.dto.CursorPageDTO;
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
 import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskImportErrorDTO;
+import com.ironhack.taskithub.dto.TaskImportResultDTO;
+import com.ironhack.taskithub.dto.TaskSearchDTO;
 import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.dto.TaskSyncDTO;
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.enums.TaskSortKey;
 import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.service.TaskImportService;
 import com.ironhack.taskithub.service.TaskService;
+import com.ironhack.taskithub.service.TaskSyncService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +26,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
@@ -35,6 +47,12 @@ class TaskControllerUnitTest {
     @MockBean
     private TaskService taskService;
 
+    @MockBean
+    private TaskImportService taskImportService;
+
+    @MockBean
+    private TaskSyncService taskSyncService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -66,14 +84,105 @@ class TaskControllerUnitTest {
                 .andExpect(jsonPath("$.title").value("New Task"));
     }
 
+    @Test
+    void importTasks_ndjsonBody_resultReturned() throws Exception {
+        TaskImportResultDTO result = new TaskImportResultDTO();
+        result.setReceived(2);
+        result.setImported(1);
+        result.getErrors().add(new TaskImportErrorDTO(2, "Department not found: 9"));
+
+        when(taskImportService.importTasks(any(InputStream.class))).thenReturn(result);
+
+        mockMvc.perform(post("/tasks/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"title\": \"A\"}\n{\"title\": \"B\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+    }
+
+    @Test
+    void bulkUpdateTasks_validRequest_affectedCountReturned() throws Exception {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDepartmentId(1L);
+        request.setStatus(Status.COMPLETED);
+
+        when(taskService.bulkUpdateTasks(any(TaskBulkUpdateDTO.class))).thenReturn(3);
+
+        mockMvc.perform(patch("/tasks/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+    }
+
+    @Test
+    void searchTasks_queryParameters_boundToSearch() throws Exception {
+        TaskSummaryDTO taskDTO = new TaskSummaryDTO();
+        taskDTO.setId(1L);
+
+        when(taskService.searchTasks(any(TaskSearchDTO.class), isNull(), eq(20), eq(TaskSortKey.DUE_DATE)))
+                .thenReturn(new CursorPageDTO<>(List.of(taskDTO), null));
+
+        mockMvc.perform(get("/tasks/search")
+                .param("departmentId", "1")
+                .param("status", "NOT_STARTED", "IN_PROGRESS")
+                .param("priority", "HIGH")
+                .param("dueTo", "2024-06-30T23:59:59")
+                .param("limit", "20")
+                .param("sort", "DUE_DATE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1));
+
+        verify(taskService).searchTasks(argThat(search -> search.getDepartmentId().equals(1L)
+                && search.getStatus().equals(List.of(Status.NOT_STARTED, Status.IN_PROGRESS))
+                && search.getPriority().equals(List.of(Priority.HIGH))
+                && search.getDueTo().toString().equals("2024-06-30T23:59:59")
+                && search.getDueFrom() == null), isNull(), eq(20), eq(TaskSortKey.DUE_DATE));
+    }
+
+    @Test
+    void searchTaskText_textQuery_rankedTasksReturned() throws Exception {
+        TaskSummaryDTO taskDTO = new TaskSummaryDTO();
+        taskDTO.setId(1L);
+        taskDTO.setTitle("Quarterly report");
+
+        when(taskService.searchTaskText("quart", 2L, List.of(Status.IN_PROGRESS), 20)).thenReturn(List.of(taskDTO));
+
+        mockMvc.perform(get("/tasks/search")
+                .param("q", "quart")
+                .param("departmentId", "2")
+                .param("status", "IN_PROGRESS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Quarterly report"));
+    }
+
+    @Test
+    void syncTasks_watermark_changesAndNextWatermarkReturned() throws Exception {
+        TaskSummaryDTO taskDTO = new TaskSummaryDTO();
+        taskDTO.setId(1L);
+        taskDTO.setTitle("Changed task");
+
+        when(taskSyncService.sync(2L, null, "abc", 100))
+                .thenReturn(new TaskSyncDTO(List.of(taskDTO), List.of(7L), "def", false));
+
+        mockMvc.perform(get("/tasks/sync")
+                .param("departmentId", "2")
+                .param("watermark", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].title").value("Changed task"))
+                .andExpect(jsonPath("$.removed[0]").value(7))
+                .andExpect(jsonPath("$.watermark").value("def"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
     @Test
     void getTaskById_existingId_taskReturned() throws Exception {
         TaskSummaryDTO taskDTO = new TaskSummaryDTO();
         taskDTO.setId(1L);
         taskDTO.setTitle("Task Title");
 
-        when(taskService.getTaskById(1L)).thenReturn(new Task());
-        when(taskService.toTaskSummaryDTO(any(Task.class))).thenReturn(taskDTO);
+        when(taskService.getTaskSummaryById(1L)).thenReturn(taskDTO);
 
         mockMvc.perform(get("/tasks/{id}", 1L))
                 .andExpect(status().isOk())
@@ -93,8 +202,7 @@ class TaskControllerUnitTest {
 
         List<TaskSummaryDTO> tasks = Arrays.asList(task1, task2);
 
-        when(taskService.getTasksByDepartment(1L)).thenReturn(List.of(new Task(), new Task()));
-        when(taskService.toTaskSummaryDTO(any(Task.class))).thenReturn(task1, task2);
+        when(taskService.getTaskSummariesByDepartment(1L)).thenReturn(tasks);
 
         mockMvc.perform(get("/tasks/department/{departmentId}", 1L))
                 .andExpect(status().isOk())
@@ -104,6 +212,24 @@ class TaskControllerUnitTest {
                 .andExpect(jsonPath("$[1].title").value("Task 2"));
     }
 
+    @Test
+    void getTasksByDepartment_withLimit_pageReturned() throws Exception {
+        TaskSummaryDTO task1 = new TaskSummaryDTO();
+        task1.setId(1L);
+        task1.setTitle("Task 1");
+
+        when(taskService.getTasksByDepartmentPage(1L, "abc", 1, TaskSortKey.DUE_DATE))
+                .thenReturn(new CursorPageDTO<>(List.of(task1), "def"));
+
+        mockMvc.perform(get("/tasks/department/{departmentId}", 1L)
+                .param("limit", "1")
+                .param("cursor", "abc")
+                .param("sort", "DUE_DATE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
     @Test
     void getTasksCreatedByUser_existingUserId_tasksReturned() throws Exception {
         TaskSummaryDTO task1 = new TaskSummaryDTO();
@@ -116,8 +242,7 @@ class TaskControllerUnitTest {
 
         List<TaskSummaryDTO> tasks = Arrays.asList(task1, task2);
 
-        when(taskService.getTasksCreatedByUser(1L)).thenReturn(List.of(new Task(), new Task()));
-        when(taskService.toTaskSummaryDTO(any(Task.class))).thenReturn(task1, task2);
+        when(taskService.getTaskSummariesCreatedByUser(1L)).thenReturn(tasks);
 
         mockMvc.perform(get("/tasks/created-by/{userId}", 1L))
                 .andExpect(status().isOk())
@@ -139,8 +264,7 @@ class TaskControllerUnitTest {
 
         List<TaskSummaryDTO> tasks = Arrays.asList(task1, task2);
 
-        when(taskService.getTasksAssignedToUser(1L)).thenReturn(List.of(new Task(), new Task()));
-        when(taskService.toTaskSummaryDTO(any(Task.class))).thenReturn(task1, task2);
+        when(taskService.getTaskSummariesAssignedToUser(1L)).thenReturn(tasks);
 
         mockMvc.perform(get("/tasks/assigned-to/{userId}", 1L))
                 .andExpect(status().isOk())
@@ -162,8 +286,7 @@ class TaskControllerUnitTest {
 
         List<TaskDTO> tasks = Arrays.asList(task1, task2);
 
-        when(taskService.getAllTasks()).thenReturn(List.of(new Task(), new Task()));
-        when(taskService.toTaskDTO(any(Task.class))).thenReturn(task1, task2);
+        when(taskService.getAllTaskDTOs()).thenReturn(tasks);
 
         mockMvc.perform(get("/tasks"))
                 .andExpect(status().isOk())
@@ -185,7 +308,7 @@ class TaskControllerUnitTest {
         outputDTO.setId(1L);
         outputDTO.setTitle("Updated Task");
 
-        when(taskService.updateTaskFromDTO(eq(1L), any(TaskDTO.class))).thenReturn(new Task());
+        when(taskService.updateTaskFromDTO(eq(1L), any(TaskDTO.class), isNull())).thenReturn(new Task());
         when(taskService.toTaskSummaryDTO(any(Task.class))).thenReturn(outputDTO);
 
         mockMvc.perform(put("/tasks/{id}", 1L)
@@ -0,0 +1,230 @@
+package com.ironhack.taskithub.controller;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.dto.UserDTO;
+import com.ironhack.taskithub.enums.Role;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * TokenControllerTest
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    private User testUser;
+    private JsonNode tokens;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testUser = new User();
+        testUser.setName("Token User");
+        testUser.setUsername("tokenuser");
+        testUser.setPassword(passwordEncoder.encode("password"));
+        testUser.setRole(Role.ADMIN);
+        // through the service, which evicts whatever an earlier test left in the login cache
+        testUser = userService.createUser(testUser, null, null);
+
+        String response = mockMvc.perform(post("/api/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"tokenuser\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        tokens = objectMapper.readTree(response);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(testUser.getId());
+        jdbcTemplate.update("delete from token_revocation");
+    }
+
+    @Test
+    void refresh_validRefreshToken_newAccessTokenAccepted() throws Exception {
+        String response = mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", "expired-access-token")
+                .content(refreshBody()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = objectMapper.readTree(response).get("access_token").asText();
+
+        assertNotEquals(tokens.get("access_token").asText(), accessToken);
+        mockMvc.perform(get("/users").header("Authorization", accessToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshToken_usedAsAccessToken_forbidden() throws Exception {
+        mockMvc.perform(get("/users").header("Authorization", tokens.get("refresh_token").asText()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void logout_tokensRevoked_refreshAndAccessRefused() throws Exception {
+        String accessToken = tokens.get("access_token").asText();
+        mockMvc.perform(get("/users").header("Authorization", accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/logout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", accessToken)
+                .content(refreshBody()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/users").header("Authorization", accessToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_usedRefreshToken_rotatedAndOldOneRefused() throws Exception {
+        String response = mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String rotated = objectMapper.readTree(response).get("refresh_token").asText();
+
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody(rotated)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refresh_sameTokenTwiceAtOnce_secondRefused() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> refreshes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            refreshes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                    return mockMvc.perform(post("/api/token/refresh")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(refreshBody()))
+                            .andReturn().getResponse().getStatus();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        start.countDown();
+
+        List<Integer> statuses = new ArrayList<>();
+        for (CompletableFuture<Integer> refresh : refreshes) {
+            statuses.add(refresh.get(10, TimeUnit.SECONDS));
+        }
+        Collections.sort(statuses);
+        assertEquals(List.of(200, 401), statuses);
+    }
+
+    @Test
+    void refresh_tokenUsedOnOtherNode_unauthorized() throws Exception {
+        // the other node's revocation, not yet in this node's snapshot
+        DecodedJWT refreshToken = JWT.decode(tokens.get("refresh_token").asText());
+        jdbcTemplate.update("insert into token_revocation (jti, expires_at, revoked_at) values (?, ?, ?)",
+                refreshToken.getId(), refreshToken.getExpiresAt(), new Date());
+
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_afterPasswordChange_unauthorized() throws Exception {
+        UserDTO update = new UserDTO();
+        update.setPassword("new-password");
+        userService.updateUser(testUser.getId(), update);
+
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logout_expiredAccessToken_refreshTokenRevoked() throws Exception {
+        String expiredAccessToken = JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
+                .withSubject("tokenuser")
+                .withExpiresAt(Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)))
+                .sign(Algorithm.HMAC256("secret".getBytes()));
+
+        mockMvc.perform(post("/api/logout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", expiredAccessToken)
+                .content(refreshBody()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refreshBody()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String refreshBody() {
+        return refreshBody(tokens.get("refresh_token").asText());
+    }
+
+    private static String refreshBody(String refreshToken) {
+        return "{\"refresh_token\":\"" + refreshToken + "\"}";
+    }
+}
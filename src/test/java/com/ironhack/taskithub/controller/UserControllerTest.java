@@ -5,6 +5,8 @@ import com.ironhack.taskithub.dto.UserDTO;
 import com.ironhack.taskithub.enums.Role;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.security.JwtTokens;
+import com.ironhack.taskithub.security.LoginGuard;
 import com.ironhack.taskithub.security.filters.CustomAuthenticationFilter;
 import com.ironhack.taskithub.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,6 +49,12 @@ public class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private LoginGuard loginGuard;
+
+    @Autowired
+    private JwtTokens jwtTokens;
+
     private User testUser;
     private String authToken;
 
@@ -62,7 +70,7 @@ public class UserControllerTest {
         testUser = userRepository.save(testUser);
 
         // Obtain auth token
-        CustomAuthenticationFilter filter = new CustomAuthenticationFilter(authenticationManager);
+        CustomAuthenticationFilter filter = new CustomAuthenticationFilter(authenticationManager, loginGuard, jwtTokens);
         MvcResult result = mockMvc.perform(post("/api/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"username\":\"testuser\",\"password\":\"password\"}"))
@@ -73,6 +81,23 @@ public class UserControllerTest {
         authToken = objectMapper.readTree(response).get("access_token").asText();
     }
 
+    @Test
+    void login_repeatedFailures_throttledWithRetryAfter() throws Exception {
+        // a username of its own, the failures count for the whole window
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"username\":\"intruder\",\"password\":\"guess" + i + "\"}"))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(post("/api/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"intruder\",\"password\":\"guess\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
     @Test
     void createUser() throws Exception {
         UserDTO newUser = new UserDTO();
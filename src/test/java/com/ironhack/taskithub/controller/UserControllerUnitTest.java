@@ -15,6 +15,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -120,7 +121,7 @@ class UserControllerUnitTest {
         outputDTO.setId(1L);
         outputDTO.setUsername("updateduser");
 
-        when(userService.updateUserFromDTO(eq(1L), any(UserDTO.class))).thenReturn(outputDTO);
+        when(userService.updateUserFromDTO(eq(1L), any(UserDTO.class), isNull())).thenReturn(outputDTO);
 
         mockMvc.perform(put("/users/{id}", 1L)
                 .content(objectMapper.writeValueAsString(inputDTO))
@@ -132,11 +133,11 @@ class UserControllerUnitTest {
 
     @Test
     void deleteUser_existingId_userDeleted() throws Exception {
-        doNothing().when(userService).deleteUser(1L);
+        when(userService.deleteUser(1L, null)).thenReturn(Optional.empty());
 
         mockMvc.perform(delete("/users/{id}", 1L))
                 .andExpect(status().isNoContent());
 
-        verify(userService, times(1)).deleteUser(1L);
+        verify(userService, times(1)).deleteUser(1L, null);
     }
 }
@@ -0,0 +1,21 @@
+package com.ironhack.taskithub.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DbTimeTest
+ */
+class DbTimeTest {
+
+    @Test
+    void now_noSubMicrosecondPart() {
+        assertEquals(0, DbTime.now().getNano() % 1000);
+    }
+
+    @Test
+    void timestamp_noSubMicrosecondPart() {
+        assertEquals(0, DbTime.timestamp().getNanos() % 1000);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ironhack.taskithub.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PinnedCarrierCheckTest
+ */
+class PinnedCarrierCheckTest {
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(PinnedCarrierCheck.PARALLELISM);
+    }
+
+    @Test
+    void reserveCarriers_virtualThreadsProfile_carrierPerConnectionOfBothPools() {
+        PinnedCarrierCheck.reserveCarriers(new String[] { "--spring.profiles.active=default, virtual-threads" });
+
+        assertEquals(String.valueOf(2 * 20 + cores), System.getProperty(PinnedCarrierCheck.PARALLELISM));
+    }
+
+    @Test
+    void reserveCarriers_poolSizeOnCommandLine_used() {
+        PinnedCarrierCheck.reserveCarriers(new String[] { "--spring.profiles.active=virtual-threads",
+                "--spring.datasource.hikari.maximum-pool-size=5" });
+
+        assertEquals(String.valueOf(2 * 5 + cores), System.getProperty(PinnedCarrierCheck.PARALLELISM));
+    }
+
+    @Test
+    void reserveCarriers_parallelismGiven_kept() {
+        System.setProperty(PinnedCarrierCheck.PARALLELISM, "3");
+
+        PinnedCarrierCheck.reserveCarriers(new String[] { "--spring.profiles.active=virtual-threads" });
+
+        assertEquals("3", System.getProperty(PinnedCarrierCheck.PARALLELISM));
+    }
+
+    @Test
+    void reserveCarriers_profileNotActive_nothingSet() {
+        PinnedCarrierCheck.reserveCarriers(new String[] { "--spring.profiles.active=virtual-threads-off" });
+
+        assertNull(System.getProperty(PinnedCarrierCheck.PARALLELISM));
+    }
+}
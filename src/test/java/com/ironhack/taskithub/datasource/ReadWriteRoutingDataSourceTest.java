@@ -0,0 +1,83 @@
+package com.ironhack.taskithub.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReadWriteRoutingDataSourceTest
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final AtomicBoolean replicaUsable = new AtomicBoolean(true);
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica, replicaUsable::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadWriteRoutingDataSource.closeReadScope();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_outsideReadScope_primaryUsed() throws Exception {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_readScope_replicaUsed() throws Exception {
+        ReadWriteRoutingDataSource.openReadScope();
+        assertSame(replicaConnection, routingDataSource.getConnection());
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_readWriteTransactionInReadScope_primaryUsed() throws Exception {
+        ReadWriteRoutingDataSource.openReadScope();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_replicaLagging_primaryUsed() throws Exception {
+        ReadWriteRoutingDataSource.openReadScope();
+        replicaUsable.set(false);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void wroteRecently_withinWindow_trueUntilExpired() throws Exception {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMillis(200));
+        tracker.recordWrite("alice");
+
+        assertTrue(tracker.wroteRecently("alice"));
+        assertFalse(tracker.wroteRecently("bob"));
+        Thread.sleep(300);
+        assertFalse(tracker.wroteRecently("alice"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.ironhack.taskithub.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestConcurrencyFilterTest
+ */
+class RequestConcurrencyFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestConcurrencyFilter filter = new RequestConcurrencyFilter(1, Duration.ofMillis(50),
+            meterRegistry);
+
+    @Test
+    void doFilter_limitReached_serviceUnavailableWithRetryAfter() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> filter(new MockHttpServletRequest("GET", "/tasks"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            inside.countDown();
+                            await(release);
+                        }));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get("taskithub.http.requests.rejected").counter().count());
+        assertEquals(1, meterRegistry.get("taskithub.http.requests.active").gauge().value());
+
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, new MockFilterChain());
+        assertEquals(200, health.getStatus());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks"), admitted, new MockFilterChain());
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    void doFilter_chainFails_permitReleased() throws Exception {
+        assertThrows(ServletException.class, () -> filter.doFilter(new MockHttpServletRequest("GET", "/tasks"),
+                new MockHttpServletResponse(), (request, response) -> {
+                    throw new ServletException("failed");
+                }));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks"), response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+        assertEquals(0, meterRegistry.get("taskithub.http.requests.active").gauge().value());
+    }
+
+    private void filter(MockHttpServletRequest request, MockHttpServletResponse response,
+            FilterChain chain) {
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ironhack.taskithub.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LoginGuardTest
+ */
+class LoginGuardTest {
+    private final Authentication authenticated = new TestingAuthenticationToken("user", null, "USER");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginGuard loginGuard = new LoginGuard(meterRegistry, 1, 1, Duration.ofSeconds(5),
+            Duration.ofMinutes(15), 3, 5);
+
+    @AfterEach
+    void tearDown() {
+        loginGuard.close();
+    }
+
+    @Test
+    void authenticate_failuresPerUsername_throttledUntilWindowPassed() {
+        for (int i = 0; i < 3; i++) {
+            loginGuard.failed("User", "10.0.0.1");
+        }
+
+        LoginRejectedException rejected = assertThrows(LoginRejectedException.class,
+                () -> loginGuard.authenticate("user", "10.0.0.2", () -> authenticated));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+        assertTrue(rejected.getRetryAfterSeconds() > 14 * 60);
+        assertSame(authenticated, loginGuard.authenticate("other", "10.0.0.1", () -> authenticated));
+    }
+
+    @Test
+    void authenticate_failuresPerAddress_throttledForEveryUsername() {
+        for (int i = 0; i < 5; i++) {
+            loginGuard.failed("user" + i, "10.0.0.1");
+        }
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, assertThrows(LoginRejectedException.class,
+                () -> loginGuard.authenticate("someone", "10.0.0.1", () -> authenticated)).getStatus());
+    }
+
+    @Test
+    void authenticate_success_clearsUsernameFailures() {
+        loginGuard.failed("user", "10.0.0.1");
+        loginGuard.failed("user", "10.0.0.1");
+        loginGuard.authenticate("user", "10.0.0.1", () -> authenticated);
+        loginGuard.failed("user", "10.0.0.1");
+
+        assertSame(authenticated, loginGuard.authenticate("user", "10.0.0.1", () -> authenticated));
+    }
+
+    @Test
+    void authenticate_badCredentials_rethrownFromPool() {
+        assertThrows(BadCredentialsException.class, () -> loginGuard.authenticate("user", "10.0.0.1", () -> {
+            throw new BadCredentialsException("Bad credentials");
+        }));
+    }
+
+    @Test
+    void authenticate_poolAndQueueFull_shedWith503() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Authentication> busy = CompletableFuture.supplyAsync(() ->
+                loginGuard.authenticate("first", "10.0.0.1", () -> {
+                    running.countDown();
+                    await(release);
+                    return authenticated;
+                }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Authentication> queued = CompletableFuture.supplyAsync(() ->
+                loginGuard.authenticate("second", "10.0.0.1", () -> authenticated));
+        while (meterRegistry.get("taskithub.login.verification.queued").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        LoginRejectedException rejected = assertThrows(LoginRejectedException.class,
+                () -> loginGuard.authenticate("third", "10.0.0.1", () -> authenticated));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals(1, meterRegistry.get("taskithub.login.rejected").tag("reason", "overloaded").counter().count());
+
+        release.countDown();
+        assertSame(authenticated, busy.get(5, TimeUnit.SECONDS));
+        assertSame(authenticated, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ironhack.taskithub.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironhack.taskithub.enums.Role;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * MetricsAuthorizationTest
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsAuthorizationTest {
+    private static final String[] PATHS = { "/actuator/metrics", "/actuator/metrics/jvm.memory.used" };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setName("Metrics User");
+        testUser.setUsername("metricsuser");
+        testUser.setPassword(passwordEncoder.encode("password"));
+        testUser.setRole(Role.USER);
+        testUser = userService.createUser(testUser, null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    void metrics_anonymous_forbiddenForEveryMethod() throws Exception {
+        for (String path : PATHS) {
+            mockMvc.perform(get(path)).andExpect(status().isForbidden());
+            mockMvc.perform(head(path)).andExpect(status().isForbidden());
+            mockMvc.perform(post(path)).andExpect(status().isForbidden());
+            mockMvc.perform(options(path)).andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    void metrics_user_forbidden() throws Exception {
+        String accessToken = login();
+        for (String path : PATHS) {
+            mockMvc.perform(get(path).header("Authorization", accessToken)).andExpect(status().isForbidden());
+            mockMvc.perform(head(path).header("Authorization", accessToken)).andExpect(status().isForbidden());
+        }
+    }
+
+    private String login() throws Exception {
+        String response = mockMvc.perform(post("/api/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"metricsuser\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("access_token").asText();
+    }
+}
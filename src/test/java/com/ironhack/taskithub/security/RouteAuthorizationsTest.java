@@ -0,0 +1,112 @@
+package com.ironhack.taskithub.security;
+
+import com.ironhack.taskithub.enums.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RouteAuthorizationsTest
+ */
+class RouteAuthorizationsTest {
+    private final RouteAuthorizations routes = SecurityConfig.routeAuthorizations();
+    private final Authentication admin = authentication("ADMIN");
+    private final Authentication user = authentication("USER");
+    private final Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    @Test
+    void isGranted_apiRoutes_sameAsDeclared() {
+        assertTrue(routes.isGranted("POST", "/users", admin));
+        assertFalse(routes.isGranted("POST", "/users", user));
+        assertTrue(routes.isGranted("GET", "/users/username/admin", user));
+        assertTrue(routes.isGranted("GET", "/users/7", user));
+        assertFalse(routes.isGranted("DELETE", "/users/7", user));
+        assertFalse(routes.isGranted("GET", "/users/delete-jobs/abc", user));
+        assertTrue(routes.isGranted("GET", "/users/delete-jobs/abc", admin));
+
+        assertFalse(routes.isGranted("GET", "/departments", user));
+        assertFalse(routes.isGranted("GET", "/departments/5/task-ids", user));
+        assertTrue(routes.isGranted("GET", "/departments/5/task-ids", admin));
+
+        assertTrue(routes.isGranted("GET", "/tasks/sync", user));
+        assertFalse(routes.isGranted("GET", "/tasks/sync", anonymous));
+        assertFalse(routes.isGranted("POST", "/tasks/import", user));
+        assertTrue(routes.isGranted("POST", "/tasks", user));
+        assertTrue(routes.isGranted("PATCH", "/tasks/bulk", user));
+        assertFalse(routes.isGranted("GET", "/actuator/metrics/jvm.memory.used", user));
+        assertFalse(routes.isGranted("HEAD", "/actuator/metrics", anonymous));
+        assertFalse(routes.isGranted("POST", "/actuator/metrics/jvm.memory.used", anonymous));
+        assertTrue(routes.isGranted("HEAD", "/actuator/metrics", admin));
+    }
+
+    @Test
+    void isGranted_headRequest_getRuleApplies() {
+        assertFalse(routes.isGranted("HEAD", "/users/7", anonymous));
+        assertTrue(routes.isGranted("HEAD", "/users/7", user));
+        assertFalse(routes.isGranted("HEAD", "/departments", user));
+    }
+
+    @Test
+    void isGranted_ruleWithoutMethod_everyMethod() {
+        RouteAuthorizations anyMethod = RouteAuthorizations.builder()
+                .route(HttpMethod.GET, "/reports/public", Role.USER)
+                .route("/reports/**", Role.ADMIN)
+                .build();
+
+        assertTrue(anyMethod.isGranted("GET", "/reports/public", user));
+        assertFalse(anyMethod.isGranted("DELETE", "/reports/public", user));
+        assertFalse(anyMethod.isGranted("PROPFIND", "/reports/a", user));
+        assertTrue(anyMethod.isGranted("PROPFIND", "/reports/a", admin));
+    }
+
+    @Test
+    void isGranted_noRule_open() {
+        assertTrue(routes.isGranted("GET", "/actuator/health", anonymous));
+        assertTrue(routes.isGranted("POST", "/api/token/refresh", null));
+        assertTrue(routes.isGranted("GET", "/", anonymous));
+        // a variable segment is never empty, like the request matchers
+        assertTrue(routes.isGranted("DELETE", "/users/", anonymous));
+    }
+
+    @Test
+    void isGranted_overlappingRules_firstDeclaredDecides() {
+        RouteAuthorizations overlapping = RouteAuthorizations.builder()
+                .route(HttpMethod.GET, "/reports/{id}", Role.USER)
+                .route(HttpMethod.GET, "/reports/admin", Role.ADMIN)
+                .route(HttpMethod.GET, "/files/**", Role.ADMIN)
+                .route(HttpMethod.GET, "/files/public", Role.USER)
+                .build();
+
+        assertTrue(overlapping.isGranted("GET", "/reports/admin", user));
+        assertFalse(overlapping.isGranted("GET", "/files/public", user));
+        assertFalse(overlapping.isGranted("GET", "/files", user));
+        assertTrue(overlapping.isGranted("GET", "/files/a/b/c", admin));
+    }
+
+    @Test
+    void check_encodedPath_decodedBeforeLookup() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/depa%72tments");
+
+        assertFalse(routes.check(() -> user, new RequestAuthorizationContext(request)).isGranted());
+        assertTrue(routes.check(() -> admin, new RequestAuthorizationContext(request)).isGranted());
+    }
+
+    @Test
+    void build_wildcardNotLast_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RouteAuthorizations.builder().route(HttpMethod.GET, "/a/**/b", Role.USER).build());
+    }
+
+    private static Authentication authentication(String authority) {
+        return new UsernamePasswordAuthenticationToken("someone", null,
+                AuthorityUtils.createAuthorityList(authority));
+    }
+}
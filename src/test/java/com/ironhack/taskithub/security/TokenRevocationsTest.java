@@ -0,0 +1,72 @@
+package com.ironhack.taskithub.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenRevocationsTest
+ */
+@SpringBootTest
+public class TokenRevocationsTest {
+
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from token_revocation");
+        tokenRevocations.rebuild();
+    }
+
+    @Test
+    void revoke_appliesRightAwayAndSurvivesRebuild() {
+        tokenRevocations.revoke("local-jti", Instant.now().plus(1, ChronoUnit.HOURS));
+        assertTrue(tokenRevocations.isRevoked("local-jti"));
+
+        tokenRevocations.rebuild();
+        assertTrue(tokenRevocations.isRevoked("local-jti"));
+        assertFalse(tokenRevocations.isRevoked("other-jti"));
+    }
+
+    @Test
+    void rebuild_revocationsOfOtherNodesLoadedAndExpiredPruned() {
+        insert("remote-jti", Instant.now().plus(1, ChronoUnit.HOURS));
+        insert("expired-jti", Instant.now().minus(1, ChronoUnit.MINUTES));
+        assertFalse(tokenRevocations.isRevoked("remote-jti"));
+
+        tokenRevocations.rebuild();
+
+        assertTrue(tokenRevocations.isRevoked("remote-jti"));
+        assertFalse(tokenRevocations.isRevoked("expired-jti"));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from token_revocation", Integer.class));
+    }
+
+    @Test
+    void isRevoked_manyRevocations_allFoundAndNoOthers() {
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(1, ChronoUnit.HOURS));
+        jdbcTemplate.batchUpdate("insert into token_revocation (jti, expires_at, revoked_at) values (?, ?, ?)",
+                IntStream.range(0, 5000).mapToObj(i -> new Object[] { "revoked-" + i, expiresAt, expiresAt }).toList());
+        tokenRevocations.rebuild();
+
+        assertTrue(IntStream.range(0, 5000).allMatch(i -> tokenRevocations.isRevoked("revoked-" + i)));
+        assertTrue(IntStream.range(0, 5000).noneMatch(i -> tokenRevocations.isRevoked("active-" + i)));
+    }
+
+    private void insert(String jti, Instant expiresAt) {
+        jdbcTemplate.update("insert into token_revocation (jti, expires_at, revoked_at) values (?, ?, ?)",
+                jti, Timestamp.from(expiresAt), Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ironhack.taskithub.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * VerifiedTokenCacheTest
+ */
+class VerifiedTokenCacheTest {
+    private final Algorithm algorithm = Algorithm.HMAC256("secret".getBytes());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenRevocations tokenRevocations = mock(TokenRevocations.class);
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(algorithm, tokenRevocations, 10, meterRegistry);
+    }
+
+    @Test
+    void authenticate_sameTokenTwice_verifiedOnceAndCountedAsHit() {
+        String token = token("admin", List.of("ADMIN", "USER"), 60_000);
+
+        Authentication first = verifiedTokenCache.authenticate(token);
+        Authentication second = verifiedTokenCache.authenticate(token);
+
+        assertSame(first, second);
+        assertEquals("admin", first.getPrincipal());
+        assertEquals(List.of("ADMIN", "USER"),
+                first.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "verified-tokens").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "verified-tokens").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void authenticate_invalidSignature_rejectedAndNotCached() {
+        String forged = JWT.create().withSubject("admin").withClaim("roles", List.of("ADMIN"))
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+                .sign(Algorithm.HMAC256("other".getBytes()));
+
+        assertThrows(JWTVerificationException.class, () -> verifiedTokenCache.authenticate(forged));
+        assertThrows(JWTVerificationException.class, () -> verifiedTokenCache.authenticate(forged));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void authenticate_afterExpiry_rejected() throws InterruptedException {
+        String token = token("user", List.of("USER"), 1_500);
+        assertNotNull(verifiedTokenCache.authenticate(token));
+
+        Thread.sleep(2_000);
+        assertThrows(JWTVerificationException.class, () -> verifiedTokenCache.authenticate(token));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void authenticate_revokedAfterCaching_rejected() {
+        String token = JWT.create().withJWTId("revoked-jti").withSubject("user").withClaim("roles", List.of("USER"))
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000)).sign(algorithm);
+        assertNotNull(verifiedTokenCache.authenticate(token));
+
+        when(tokenRevocations.isRevoked("revoked-jti")).thenReturn(true);
+        assertThrows(JWTVerificationException.class, () -> verifiedTokenCache.authenticate(token));
+    }
+
+    @Test
+    void authenticate_refreshToken_rejected() {
+        String refreshToken = JWT.create().withSubject("user").withClaim("type", "refresh")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000)).sign(algorithm);
+
+        assertThrows(JWTVerificationException.class, () -> verifiedTokenCache.authenticate(refreshToken));
+    }
+
+    private String token(String username, List<String> roles, long validForMillis) {
+        return JWT.create().withSubject(username).withClaim("roles", roles)
+                .withExpiresAt(new Date(System.currentTimeMillis() + validForMillis))
+                .sign(algorithm);
+    }
+}
@@ -0,0 +1,198 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChangeOutboxRelayTest
+ */
+@SpringBootTest(properties = "taskithub.outbox.max-attempts=3")
+public class ChangeOutboxRelayTest {
+    private static final long FAILING_ID = 900002L;
+
+    @Autowired
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private ChangeOutboxRelay changeOutboxRelay;
+
+    @Autowired
+    private RecordingListener recordingListener;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @TestConfiguration
+    static class ListenerConfig {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements ChangeListener {
+        private final List<ChangeEvent> received = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger failed = new AtomicInteger();
+
+        @Override
+        public void onChanges(List<ChangeEvent> events) {
+            if (events.stream().anyMatch(event -> event.entityId() == FAILING_ID)) {
+                failed.incrementAndGet();
+                throw new IllegalStateException("Listener failure");
+            }
+            received.addAll(events);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from change_outbox");
+        recordingListener.received.clear();
+        recordingListener.failed.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from change_outbox");
+    }
+
+    @Test
+    void drain_recordedChanges_deliveredInOrderWithScopes() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeOutbox.record(ChangeEntity.DEPARTMENT, 900001L, ChangeType.CREATED);
+            changeOutbox.record(ChangeEntity.DEPARTMENT, 900003L, ChangeType.UPDATED, List.of(5L), List.of(6L, 7L));
+            changeOutbox.recordAll(ChangeEntity.DEPARTMENT, List.of(900004L, 900005L), ChangeType.DELETED,
+                    Map.of(900005L, List.of(8L)));
+        });
+        changeOutboxRelay.drain();
+
+        List<ChangeEvent> received = recordingListener.received;
+        assertEquals(List.of(900001L, 900003L, 900004L, 900005L), received.stream().map(ChangeEvent::entityId).toList());
+        assertEquals(ChangeType.UPDATED, received.get(1).type());
+        assertEquals(List.of(5L), received.get(1).departmentIds());
+        assertEquals(List.of(6L, 7L), received.get(1).userIds());
+        assertEquals(List.of(8L), received.get(3).userIds());
+
+        // kept for the other nodes, but not delivered twice here
+        changeOutboxRelay.drain();
+        assertEquals(4, received.size());
+        assertEquals(4, outboxSize());
+    }
+
+    @Test
+    void drain_listenerFails_onlyTheFailingChangeRetriedAndFinallyDropped() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeOutbox.record(ChangeEntity.DEPARTMENT, 900001L, ChangeType.UPDATED);
+            changeOutbox.record(ChangeEntity.DEPARTMENT, FAILING_ID, ChangeType.UPDATED);
+            changeOutbox.record(ChangeEntity.DEPARTMENT, 900003L, ChangeType.UPDATED);
+        });
+        changeOutboxRelay.drain();
+
+        assertEquals(List.of(900001L, 900003L),
+                recordingListener.received.stream().map(ChangeEvent::entityId).toList());
+
+        for (int i = 0; i < 5; i++) {
+            changeOutboxRelay.drain();
+        }
+        // every attempt fails the whole batch first and then the row on its own, three attempts at most
+        assertEquals(6, recordingListener.failed.get());
+        assertEquals(2, recordingListener.received.size());
+    }
+
+    @Test
+    void drain_twoNodes_eachDeliversEveryChange() {
+        RecordingListener otherListener = new RecordingListener();
+        ChangeOutboxRelay otherNode = new ChangeOutboxRelay();
+        beanFactory.autowireBean(otherNode);
+        ReflectionTestUtils.setField(otherNode, "listeners", List.of(otherListener));
+        otherNode.open();
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> changeOutbox.record(ChangeEntity.DEPARTMENT, 900001L, ChangeType.CREATED));
+            changeOutboxRelay.drain();
+            otherNode.drain();
+
+            assertEquals(List.of(900001L), recordingListener.received.stream().map(ChangeEvent::entityId).toList());
+            assertEquals(List.of(900001L), otherListener.received.stream().map(ChangeEvent::entityId).toList());
+        } finally {
+            otherNode.close();
+        }
+    }
+
+    @Test
+    void drain_rowCommittedBehindPosition_deliveredOnceCommitted() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWrite = CompletableFuture.runAsync(() -> transactionTemplate
+                .executeWithoutResult(status -> {
+                    changeOutbox.record(ChangeEntity.DEPARTMENT, 900001L, ChangeType.UPDATED);
+                    recorded.countDown();
+                    await(commit);
+                }));
+        assertTrue(recorded.await(5, TimeUnit.SECONDS));
+        transactionTemplate.executeWithoutResult(
+                status -> changeOutbox.record(ChangeEntity.DEPARTMENT, 900003L, ChangeType.UPDATED));
+        changeOutboxRelay.drain();
+        assertEquals(List.of(900003L), recordingListener.received.stream().map(ChangeEvent::entityId).toList());
+
+        commit.countDown();
+        slowWrite.get(5, TimeUnit.SECONDS);
+        changeOutboxRelay.drain();
+        assertEquals(List.of(900003L, 900001L),
+                recordingListener.received.stream().map(ChangeEvent::entityId).toList());
+    }
+
+    @Test
+    void prune_rowsOlderThanRetention_deleted() {
+        jdbcTemplate.update("insert into change_outbox (entity, entity_id, change_type, created_at) values (?, ?, ?, ?)",
+                "DEPARTMENT", 900001L, "UPDATED", Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+        transactionTemplate.executeWithoutResult(
+                status -> changeOutbox.record(ChangeEntity.DEPARTMENT, 900003L, ChangeType.UPDATED));
+
+        changeOutboxRelay.prune();
+
+        assertEquals(1, outboxSize());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int outboxSize() {
+        return jdbcTemplate.queryForObject("select count(*) from change_outbox", Integer.class);
+    }
+}
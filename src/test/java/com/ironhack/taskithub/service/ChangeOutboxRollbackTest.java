@@ -0,0 +1,108 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.UserDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.Role;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * ChangeOutboxRollbackTest
+ */
+@SpringBootTest
+public class ChangeOutboxRollbackTest {
+
+    @SpyBean
+    private ChangeOutbox changeOutbox;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    private User testUser;
+    private Department testDepartment;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setName("Outbox User");
+        testUser.setUsername("outboxuser");
+        testUser.setPassword("password");
+        testUser.setRole(Role.USER);
+        testUser = userRepository.save(testUser);
+
+        testDepartment = new Department();
+        testDepartment.setName("Outbox Department");
+        testDepartment = departmentRepository.save(testDepartment);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+    }
+
+    @Test
+    void updateUserFromDTO_outboxInsertFails_userUnchanged() {
+        failOutbox(ChangeEntity.USER);
+        UserDTO dto = new UserDTO();
+        dto.setName("Renamed");
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> userService.updateUserFromDTO(testUser.getId(), dto, null));
+
+        assertEquals("Outbox User", userRepository.findById(testUser.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void createDepartmentFromDTO_outboxInsertFails_nothingCreated() {
+        failOutbox(ChangeEntity.DEPARTMENT);
+        DepartmentDTO dto = new DepartmentDTO();
+        dto.setName("Never Created");
+
+        assertThrows(DataAccessResourceFailureException.class, () -> departmentService.createDepartmentFromDTO(dto));
+
+        assertTrue(departmentRepository.findAll().stream().noneMatch(d -> d.getName().equals("Never Created")));
+    }
+
+    @Test
+    void updateDepartmentFromDTO_outboxInsertFails_departmentUnchanged() {
+        failOutbox(ChangeEntity.DEPARTMENT);
+        DepartmentDTO dto = new DepartmentDTO();
+        dto.setName("Renamed Department");
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> departmentService.updateDepartmentFromDTO(testDepartment.getId(), dto, null));
+
+        assertEquals("Outbox Department",
+                departmentRepository.findById(testDepartment.getId()).orElseThrow().getName());
+    }
+
+    private void failOutbox(ChangeEntity entity) {
+        doThrow(new DataAccessResourceFailureException("Outbox unavailable"))
+                .when(changeOutbox).record(eq(entity), any(), any());
+    }
+}
@@ -1,6 +1,10 @@
 package com.ironhack.taskithub.service;
 
+import com.ironhack.taskithub.dto.CursorPageDTO;
 import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
@@ -82,13 +86,29 @@ public class DepartmentServiceTest {
         assertTrue(created.getTasks().contains(testTask));
     }
 
+    // not transactional: the insert fails in the database, which leaves the surrounding transaction unusable
     @Test
-    @Transactional
     void createDepartment_duplicateName_throwsException() {
         Department department = new Department();
         department.setName("Test Department");
 
-        assertThrows(ResponseStatusException.class, () -> departmentService.createDepartment(department, null, null));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> departmentService.createDepartment(department, null, null));
+        assertEquals(409, exception.getStatusCode().value());
+    }
+
+    @Test
+    void updateDepartment_nameOfAnotherDepartment_conflictAndUnchanged() {
+        Department other = new Department();
+        other.setName("Other Department");
+        Long otherId = departmentRepository.save(other).getId();
+        Department rename = new Department();
+        rename.setName("Test Department");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> departmentService.updateDepartment(otherId, rename, null, null));
+        assertEquals(409, exception.getStatusCode().value());
+        assertEquals("Other Department", departmentRepository.findById(otherId).orElseThrow().getName());
     }
 
     @Test
@@ -121,7 +141,7 @@ public class DepartmentServiceTest {
         dto.setUserIds(Arrays.asList(testUser.getId()));
         dto.setTaskIds(Arrays.asList(testTask.getId()));
 
-        Department updated = departmentService.updateDepartmentFromDTO(testDepartment.getId(), dto);
+        Department updated = departmentService.updateDepartmentFromDTO(testDepartment.getId(), dto, null);
 
         assertNotNull(updated);
         assertEquals("Updated Department", updated.getName());
@@ -141,4 +161,54 @@ public class DepartmentServiceTest {
     void deleteDepartment_nonExistingId_throwsException() {
         assertThrows(ResponseStatusException.class, () -> departmentService.deleteDepartment(999L));
     }
+
+    @Test
+    @Transactional
+    void getDepartmentOverview_tasksAndUsers_countsGrouped() {
+        testUser.setDepartment(testDepartment);
+        saveTask(Status.COMPLETED, Priority.HIGH);
+        saveTask(Status.COMPLETED, Priority.LOW);
+        saveTask(Status.IN_PROGRESS, Priority.HIGH);
+        saveTask(null, null);
+
+        DepartmentOverviewDTO overview = departmentService.getDepartmentOverview(testDepartment.getId());
+
+        assertEquals(1, overview.getUserCount());
+        assertEquals(4, overview.getTaskCount());
+        assertEquals(2L, overview.getTasksByStatus().get(Status.COMPLETED));
+        assertEquals(1L, overview.getTasksByStatus().get(Status.IN_PROGRESS));
+        assertNull(overview.getTasksByStatus().get(Status.NOT_STARTED));
+        assertEquals(2L, overview.getTasksByPriority().get(Priority.HIGH));
+
+        DepartmentOverviewDTO fromList = departmentService.getDepartmentOverviews().stream()
+                .filter(dto -> dto.getId().equals(testDepartment.getId())).findFirst().orElseThrow();
+        assertEquals(overview, fromList);
+    }
+
+    @Test
+    @Transactional
+    void getDepartmentTaskIds_smallPages_walksAllIds() {
+        List<Long> expected = List.of(saveTask(null, null).getId(), saveTask(null, null).getId(),
+                saveTask(null, null).getId());
+
+        CursorPageDTO<Long> first = departmentService.getDepartmentTaskIds(testDepartment.getId(), null, 2);
+        assertEquals(expected.subList(0, 2), first.getItems());
+        CursorPageDTO<Long> second = departmentService.getDepartmentTaskIds(testDepartment.getId(),
+                first.getNextCursor(), 2);
+        assertEquals(expected.subList(2, 3), second.getItems());
+        assertNull(second.getNextCursor());
+
+        assertThrows(ResponseStatusException.class,
+                () -> departmentService.getDepartmentTaskIds(testDepartment.getId(), "abc", 2));
+        assertThrows(ResponseStatusException.class, () -> departmentService.getDepartmentTaskIds(999L, null, 2));
+    }
+
+    private Task saveTask(Status status, Priority priority) {
+        Task task = new Task();
+        task.setTitle("Task");
+        task.setStatus(status);
+        task.setPriority(priority);
+        task.setDepartment(testDepartment);
+        return taskRepository.save(task);
+    }
 }
@@ -1,20 +1,28 @@
 package com.ironhack.taskithub.service;
 
 import com.ironhack.taskithub.dto.DepartmentDTO;
+import com.ironhack.taskithub.dto.DepartmentOverviewDTO;
+import com.ironhack.taskithub.enums.Priority;
+import com.ironhack.taskithub.enums.Status;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.TaskRepository.DepartmentTaskCount;
 import com.ironhack.taskithub.repository.UserRepository;
+import com.ironhack.taskithub.repository.UserRepository.DepartmentUserCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -43,6 +51,15 @@ class DepartmentServiceUnitTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private ReferenceResolver referenceResolver = new ReferenceResolver(new SimpleMeterRegistry());
+
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private ChangeOutbox changeOutbox;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -65,11 +82,8 @@ class DepartmentServiceUnitTest {
         User user2 = new User();
         user2.setId(2L);
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
-        when(taskRepository.findById(2L)).thenReturn(Optional.of(task2));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(user2));
-        when(departmentRepository.existsByName(anyString())).thenReturn(false);
+        when(taskRepository.findAllById(any())).thenReturn(List.of(task1, task2));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user1, user2));
         when(departmentRepository.save(any(Department.class))).thenAnswer(i -> i.getArguments()[0]);
 
         Department created = departmentService.createDepartmentFromDTO(dto);
@@ -106,7 +120,6 @@ class DepartmentServiceUnitTest {
         dept.setId(1L);
         dept.setName("Test Dept");
 
-        when(departmentRepository.existsById(1L)).thenReturn(true);
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(dept));
 
         Department found = departmentService.getDepartmentById(1L);
@@ -117,7 +130,7 @@ class DepartmentServiceUnitTest {
 
     @Test
     void getDepartmentById_nonExistingId_throwsNotFound() {
-        when(departmentRepository.existsById(anyLong())).thenReturn(false);
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResponseStatusException.class, () -> departmentService.getDepartmentById(1L));
     }
@@ -139,33 +152,69 @@ class DepartmentServiceUnitTest {
         user.setId(1L);
 
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(existingDept));
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(taskRepository.findAllById(any())).thenReturn(List.of(task));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
         when(departmentRepository.save(any(Department.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        Department updated = departmentService.updateDepartmentFromDTO(1L, dto);
+        Department updated = departmentService.updateDepartmentFromDTO(1L, dto, null);
 
         assertNotNull(updated);
         assertEquals("New Name", updated.getName());
         assertEquals(1, updated.getTasks().size());
         assertEquals(1, updated.getUsers().size());
         verify(departmentRepository, times(1)).save(any(Department.class));
+        verify(referenceDataCache).evictDepartment(1L);
     }
 
     @Test
     void deleteDepartment_existingId_departmentDeleted() {
-        when(departmentRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(departmentRepository).deleteById(1L);
+        Department dept = new Department();
+        dept.setId(1L);
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(dept));
 
         assertDoesNotThrow(() -> departmentService.deleteDepartment(1L));
-        verify(departmentRepository, times(1)).deleteById(1L);
+        verify(departmentRepository, times(1)).delete(dept);
+        verify(referenceDataCache).evictDepartment(1L);
     }
 
     @Test
     void deleteDepartment_nonExistingId_throwsNotFound() {
-        when(departmentRepository.existsById(anyLong())).thenReturn(false);
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResponseStatusException.class, () -> departmentService.deleteDepartment(1L));
     }
 
+    @Test
+    void getDepartmentOverviews_countsOfUnseenDepartment_skipped() {
+        DepartmentOverviewDTO seen = new DepartmentOverviewDTO(1L, "Seen", LocalDateTime.now(), LocalDateTime.now());
+        when(departmentRepository.findAllOverviews()).thenReturn(List.of(seen));
+        // department 2 was created after the first query
+        List<DepartmentUserCount> userCounts = List.of(userCount(1L, 2), userCount(2L, 5));
+        List<DepartmentTaskCount> taskCounts = List.of(taskCount(1L, 3), taskCount(2L, 7));
+        when(userRepository.countByDepartment()).thenReturn(userCounts);
+        when(taskRepository.countByDepartmentStatusAndPriority()).thenReturn(taskCounts);
+
+        List<DepartmentOverviewDTO> overviews = departmentService.getDepartmentOverviews();
+
+        assertEquals(List.of(seen), overviews);
+        assertEquals(2, seen.getUserCount());
+        assertEquals(3, seen.getTaskCount());
+    }
+
+    private static DepartmentUserCount userCount(Long departmentId, long users) {
+        DepartmentUserCount count = mock(DepartmentUserCount.class);
+        when(count.getDepartmentId()).thenReturn(departmentId);
+        when(count.getUsers()).thenReturn(users);
+        return count;
+    }
+
+    private static DepartmentTaskCount taskCount(Long departmentId, long tasks) {
+        DepartmentTaskCount count = mock(DepartmentTaskCount.class);
+        when(count.getDepartmentId()).thenReturn(departmentId);
+        when(count.getStatus()).thenReturn(Status.NOT_STARTED);
+        when(count.getPriority()).thenReturn(Priority.LOW);
+        when(count.getTasks()).thenReturn(tasks);
+        return count;
+    }
+
 }
@@ -0,0 +1,144 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.dto.TaskImportErrorDTO;
+import com.ironhack.taskithub.dto.TaskImportResultDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * TaskImportServiceTest
+ */
+@SpringBootTest(properties = "taskithub.import.batch-size=2")
+public class TaskImportServiceTest {
+
+    @Autowired
+    private TaskImportService taskImportService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @SpyBean
+    private ListingVersions listingVersions;
+
+    private Department testDepartment;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testDepartment = new Department();
+        testDepartment.setName("Import Department");
+        testDepartment = departmentRepository.save(testDepartment);
+
+        testUser = new User();
+        testUser.setName("Import User");
+        testUser.setUsername("importuser");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+    }
+
+    @Test
+    void importTasks_jsonArrayWithInvalidRows_importsTheRest() {
+        String json = "["
+                + task("First", testDepartment.getId(), testUser.getId()) + ","
+                + task("Unknown department", 999L, testUser.getId()) + ","
+                + task("", testDepartment.getId(), testUser.getId()) + ","
+                + task("Second", testDepartment.getId(), testUser.getId()) + ","
+                + task("Third", testDepartment.getId(), testUser.getId())
+                + "]";
+
+        TaskImportResultDTO result = taskImportService.importTasks(stream(json));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getImported());
+        assertEquals(List.of(2, 3), result.getErrors().stream().map(TaskImportErrorDTO::getRow).toList());
+        assertEquals("Department not found: 999", result.getErrors().get(0).getMessage());
+
+        List<TaskSummaryDTO> imported = taskRepository.findSummariesByDepartmentId(testDepartment.getId());
+        assertEquals(List.of("First", "Second", "Third"), imported.stream().map(TaskSummaryDTO::getTitle).toList());
+        assertTrue(imported.stream().allMatch(dto -> dto.getAssignedUserIds().equals(List.of(testUser.getId()))));
+        assertTrue(imported.stream().allMatch(dto -> dto.getCreatedAt() != null && dto.getUpdatedAt() != null));
+    }
+
+    @Test
+    void importTasks_listingBumpFails_chunkRolledBackAndNotCounted() {
+        doThrow(new CannotAcquireLockException("Deadlock")).when(listingVersions).departmentTasksChanged(any());
+        String json = "["
+                + task("First", testDepartment.getId(), testUser.getId()) + ","
+                + task("Second", testDepartment.getId(), testUser.getId())
+                + "]";
+
+        TaskImportResultDTO result = taskImportService.importTasks(stream(json));
+
+        assertEquals(0, result.getImported());
+        assertEquals(List.of(1, 2), result.getErrors().stream().map(TaskImportErrorDTO::getRow).toList());
+        assertTrue(taskRepository.findSummariesByDepartmentId(testDepartment.getId()).isEmpty());
+    }
+
+    @Test
+    void importTasks_ndjsonWithUnmappableRow_skipsOnlyThatRow() {
+        String ndjson = task("First", testDepartment.getId(), testUser.getId()) + "\n"
+                + "{\"title\": \"Bad priority\", \"priority\": \"URGENT\"}\n"
+                + task("Second", testDepartment.getId(), testUser.getId()) + "\n";
+
+        TaskImportResultDTO result = taskImportService.importTasks(stream(ndjson));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getRow());
+    }
+
+    @Test
+    void importTasks_malformedInput_stopsAndKeepsEarlierRows() {
+        String ndjson = task("First", testDepartment.getId(), testUser.getId()) + "\n"
+                + "{\"title\": \n";
+
+        TaskImportResultDTO result = taskImportService.importTasks(stream(ndjson));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed input"));
+    }
+
+    private String task(String title, Long departmentId, Long createdById) {
+        return "{\"title\": \"" + title + "\", \"departmentId\": " + departmentId + ", \"createdById\": " + createdById
+                + ", \"priority\": \"LOW\", \"assignedUserIds\": [" + createdById + "]}";
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,142 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskSearchIndexTest
+ */
+@SpringBootTest
+public class TaskSearchIndexTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ChangeOutboxRelay changeOutboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department testDepartment;
+    private Department otherDepartment;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testDepartment = new Department();
+        testDepartment.setName("Search Department");
+        testDepartment = departmentRepository.save(testDepartment);
+
+        otherDepartment = new Department();
+        otherDepartment.setName("Other Search Department");
+        otherDepartment = departmentRepository.save(otherDepartment);
+
+        testUser = new User();
+        testUser.setName("Search User");
+        testUser.setUsername("searchuser");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+        taskService.rebuildSearchIndex();
+    }
+
+    @Test
+    void searchTaskText_titleAndPrefixMatches_rankedAndFiltered() {
+        Task inDescription = createTask("Budget review", "Attach the quarterly figures", testDepartment, Status.NOT_STARTED);
+        Task inTitle = createTask("Quarterly figures", "For the board", testDepartment, Status.NOT_STARTED);
+        Task otherDepartmentTask = createTask("Quarterly figures", null, otherDepartment, Status.NOT_STARTED);
+        Task completed = createTask("Quarterly figures draft", null, testDepartment, Status.COMPLETED);
+        changeOutboxRelay.drain();
+
+        assertEquals(List.of(inTitle.getId(), completed.getId(), inDescription.getId()),
+                ids(taskService.searchTaskText("quarterly figures", testDepartment.getId(), null, 10)));
+        assertEquals(List.of(inTitle.getId(), inDescription.getId()),
+                ids(taskService.searchTaskText("quart fig", testDepartment.getId(), List.of(Status.NOT_STARTED), 10)));
+        assertEquals(List.of(otherDepartmentTask.getId()),
+                ids(taskService.searchTaskText("quarterly", otherDepartment.getId(), null, 10)));
+        assertTrue(taskService.searchTaskText("quarterly invoices", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void searchTaskText_updatesAndDeletes_reflectedOnceRelayed() {
+        Task task = createTask("Renew certificates", null, testDepartment, Status.NOT_STARTED);
+        Task other = createTask("Renew licenses", null, testDepartment, Status.NOT_STARTED);
+
+        Task update = new Task();
+        update.setTitle("Rotate certificates");
+        update.setStatus(Status.NOT_STARTED);
+        taskService.updateTask(task.getId(), update, null);
+        changeOutboxRelay.drain();
+        assertEquals(List.of(task.getId()), ids(taskService.searchTaskText("rotate", null, null, 10)));
+        assertEquals(List.of(other.getId()), ids(taskService.searchTaskText("renew", null, null, 10)));
+
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setIds(List.of(task.getId()));
+        request.setStatus(Status.COMPLETED);
+        taskService.bulkUpdateTasks(request);
+        changeOutboxRelay.drain();
+        assertEquals(List.of(task.getId()),
+                ids(taskService.searchTaskText("certificates", null, List.of(Status.COMPLETED), 10)));
+
+        taskService.deleteTask(task.getId());
+        changeOutboxRelay.drain();
+        assertTrue(taskService.searchTaskText("certificates", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void rebuildSearchIndex_rowsWrittenOutsideTheService_indexed() {
+        jdbcTemplate.update("insert into task (title, department_id, created_by_id) values (?, ?, ?)",
+                "Migrated backlog item", testDepartment.getId(), testUser.getId());
+        assertTrue(taskService.searchTaskText("backlog", null, null, 10).isEmpty());
+
+        assertEquals(1, taskService.rebuildSearchIndex());
+
+        List<TaskSummaryDTO> found = taskService.searchTaskText("backlog", null, null, 10);
+        assertEquals(List.of("Migrated backlog item"), found.stream().map(TaskSummaryDTO::getTitle).toList());
+    }
+
+    private Task createTask(String title, String description, Department department, Status status) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setStatus(status);
+        return taskService.createTask(task, department.getId(), testUser.getId(), null);
+    }
+
+    private List<Long> ids(List<TaskSummaryDTO> tasks) {
+        return tasks.stream().map(TaskSummaryDTO::getId).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.ironhack.taskithub.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskSearchPlanTest
+ *
+ * Every single-column filter of GET /tasks/search, in the keyset shape of
+ * both sort keys, has to be answered by an index that leads with the filter
+ * and continues with the sort column.
+ */
+@SpringBootTest
+public class TaskSearchPlanTest {
+    // the index name in H2's plan comment, e.g. /* public.idx_task_status_due: status = ... */
+    private static final Pattern H2_INDEX = Pattern.compile("/\\* \\w+\\.(\\w+):");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void explain_everyFilterAndSort_servedByMatchingIndex() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put("department", "department_id = 1");
+        filters.put("created_by", "created_by_id = 1");
+        filters.put("status", "status = 'IN_PROGRESS'");
+        filters.put("priority", "priority = 'HIGH'");
+
+        List<Executable> checks = new ArrayList<>();
+        filters.forEach((name, filter) -> {
+            checks.add(() -> assertEquals("idx_task_" + name + "_updated", indexUsed(filter
+                    + " and (updated_at > '2024-01-01 00:00:00' or (updated_at = '2024-01-01 00:00:00' and id > 1))"
+                    + " order by updated_at, id")));
+            checks.add(() -> assertEquals("idx_task_" + name + "_due", indexUsed(filter
+                    + " and (due_date > '2024-01-01 00:00:00' or (due_date = '2024-01-01 00:00:00' and id > 1))"
+                    + " order by due_date, id")));
+        });
+        assertAll(checks);
+    }
+
+    private String indexUsed(String whereAndOrder) {
+        Map<String, Object> plan = jdbcTemplate
+                .queryForList("explain select id from task where " + whereAndOrder + " limit 20").get(0);
+        if (plan.containsKey("key")) {
+            // MySQL: one row per table, the chosen index in the key column
+            return (String) plan.get("key");
+        }
+        Matcher matcher = H2_INDEX.matcher((String) plan.get("plan"));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -1,23 +1,34 @@
 package com.ironhack.taskithub.service;
 
+import com.ironhack.taskithub.dto.CursorPageDTO;
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
 import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskSearchDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
 import com.ironhack.taskithub.enums.Priority;
 import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.enums.TaskSortKey;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
 import com.ironhack.taskithub.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -42,6 +53,12 @@ public class TaskServiceTest {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Task testTask;
     private User testUser;
     private Department testDepartment;
@@ -103,35 +120,293 @@ public class TaskServiceTest {
 
     @Test
     @Transactional
-    void getTasksByDepartment_existingDepartment_returnsTasks() {
-        List<Task> tasks = taskService.getTasksByDepartment(testDepartment.getId());
+    void getTaskSummariesByDepartment_existingDepartment_returnsTasks() {
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesByDepartment(testDepartment.getId());
         assertFalse(tasks.isEmpty());
-        assertTrue(tasks.contains(testTask));
+        assertTrue(tasks.stream().anyMatch(task -> task.getId().equals(testTask.getId())));
     }
 
     @Test
     @Transactional
-    void getTasksByDepartment_nonExistingDepartment_throwsException() {
-        assertThrows(ResponseStatusException.class, () -> taskService.getTasksByDepartment(999L));
+    void getTaskSummariesByDepartment_nonExistingDepartment_throwsException() {
+        assertThrows(ResponseStatusException.class, () -> taskService.getTaskSummariesByDepartment(999L));
     }
 
     @Test
     @Transactional
-    void getTasksCreatedByUser_existingUser_returnsTasks() {
-        List<Task> tasks = taskService.getTasksCreatedByUser(testUser.getId());
+    void getTasksByDepartment_departmentWithoutTasks_returnsEmptyList() {
+        Department empty = new Department();
+        empty.setName("Empty Department");
+        Long emptyId = departmentRepository.save(empty).getId();
+
+        assertTrue(taskService.getTaskSummariesByDepartment(emptyId).isEmpty());
+        assertTrue(taskService.getTasksByDepartmentPage(emptyId, null, 10, TaskSortKey.UPDATED_AT).getItems().isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void getTaskSummariesCreatedByUser_existingUser_returnsTasks() {
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesCreatedByUser(testUser.getId());
         assertFalse(tasks.isEmpty());
-        assertTrue(tasks.contains(testTask));
+        assertTrue(tasks.stream().anyMatch(task -> task.getId().equals(testTask.getId())));
     }
 
     @Test
     @Transactional
-    void getTasksAssignedToUser_existingUser_returnsTasks() {
+    void getTaskSummariesAssignedToUser_existingUser_returnsTasks() {
         testTask.setAssignedUsers(new ArrayList<>(Arrays.asList(testUser)));
         taskRepository.save(testTask);
 
-        List<Task> tasks = taskService.getTasksAssignedToUser(testUser.getId());
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesAssignedToUser(testUser.getId());
         assertFalse(tasks.isEmpty());
-        assertTrue(tasks.contains(testTask));
+        assertTrue(tasks.stream().anyMatch(task -> task.getId().equals(testTask.getId())));
+    }
+
+    @Test
+    @Transactional
+    void getTaskSummariesOfUser_nonExistingUser_throwsException() {
+        assertThrows(ResponseStatusException.class, () -> taskService.getTaskSummariesCreatedByUser(999L));
+        assertThrows(ResponseStatusException.class, () -> taskService.getTaskSummariesAssignedToUser(999L));
+    }
+
+    @Test
+    @Transactional
+    void getTasksByDepartmentPage_dueDateSort_walksDatedThenUndatedTasks() {
+        Task dueTomorrow = saveTask("Due tomorrow", LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
+        Task undated = saveTask("Undated", null);
+        Task dueInThreeDays = saveTask("Due in three days", LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
+
+        CursorPageDTO<TaskSummaryDTO> first = taskService.getTasksByDepartmentPage(testDepartment.getId(), null, 2, TaskSortKey.DUE_DATE);
+        assertEquals(List.of(dueTomorrow.getId(), dueInThreeDays.getId()), first.getItems().stream().map(TaskSummaryDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        CursorPageDTO<TaskSummaryDTO> second = taskService.getTasksByDepartmentPage(testDepartment.getId(), first.getNextCursor(), 2, TaskSortKey.DUE_DATE);
+        assertEquals(List.of(testTask.getId(), undated.getId()), second.getItems().stream().map(TaskSummaryDTO::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksPage_updatedAtSort_returnsEveryTaskOnce() {
+        saveTask("Second", null);
+        saveTask("Third", null);
+
+        List<TaskDTO> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<TaskDTO> page = taskService.getAllTasksPage(cursor, 1, TaskSortKey.UPDATED_AT);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(3, seen.size());
+        assertEquals(3, seen.stream().map(TaskDTO::getId).distinct().count());
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksPage_cursorForOtherSort_throwsException() {
+        saveTask("Second", null);
+        String cursor = taskService.getAllTasksPage(null, 1, TaskSortKey.UPDATED_AT).getNextCursor();
+
+        assertThrows(ResponseStatusException.class, () -> taskService.getAllTasksPage(cursor, 1, TaskSortKey.DUE_DATE));
+        assertThrows(ResponseStatusException.class, () -> taskService.getAllTasksPage("not-a-cursor", 1, TaskSortKey.UPDATED_AT));
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateTasks_statusFilter_updatesMatchingTasksOnly() {
+        Task inProgress = saveTask("In progress", null);
+        inProgress.setStatus(Status.IN_PROGRESS);
+        Task completed = saveTask("Already completed", null);
+        completed.setStatus(Status.COMPLETED);
+        entityManager.flush();
+        LocalDateTime completedUpdatedAt = taskService.getTaskSummaryById(completed.getId()).getUpdatedAt();
+
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDepartmentId(testDepartment.getId());
+        request.setIds(List.of(inProgress.getId(), completed.getId()));
+        request.setStatus(Status.COMPLETED);
+
+        assertEquals(1, taskService.bulkUpdateTasks(request));
+
+        TaskSummaryDTO updated = taskService.getTaskSummaryById(inProgress.getId());
+        assertEquals(Status.COMPLETED, updated.getStatus());
+        assertTrue(updated.getUpdatedAt().isAfter(inProgress.getUpdatedAt()));
+        assertEquals(completedUpdatedAt, taskService.getTaskSummaryById(completed.getId()).getUpdatedAt());
+        assertEquals(Status.NOT_STARTED, taskService.getTaskSummaryById(testTask.getId()).getStatus());
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateTasks_dueRangeAndPriority_updatesTasksInRange() {
+        saveTask("Due tomorrow", LocalDateTime.now().plusDays(1));
+        saveTask("Undated", null);
+
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDueFrom(LocalDateTime.now());
+        request.setDueTo(LocalDateTime.now().plusDays(10));
+        request.setPriority(Priority.HIGH);
+
+        // testTask (due in 7 days) and the one due tomorrow
+        assertEquals(2, taskService.bulkUpdateTasks(request));
+        assertEquals(Priority.HIGH, taskService.getTaskSummaryById(testTask.getId()).getPriority());
+    }
+
+    @Test
+    @Transactional
+    void listingTags_taskReassigned_previousAndNewListingsChange() {
+        User otherUser = new User();
+        otherUser.setName("Other User");
+        otherUser.setUsername("otheruser");
+        otherUser.setPassword("password");
+        otherUser = userRepository.save(otherUser);
+
+        Task task = new Task();
+        task.setTitle("Reassigned");
+        task = taskService.createTask(task, testDepartment.getId(), testUser.getId(), List.of(testUser.getId()));
+        String departmentTag = taskService.getDepartmentTasksTag(testDepartment.getId());
+        String previousAssigneeTag = taskService.getAssignedTasksTag(testUser.getId());
+        String newAssigneeTag = taskService.getAssignedTasksTag(otherUser.getId());
+        assertEquals(newAssigneeTag, taskService.getAssignedTasksTag(otherUser.getId()));
+
+        Task update = new Task();
+        update.setTitle("Reassigned");
+        taskService.updateTask(task.getId(), update, List.of(otherUser.getId()));
+
+        assertNotEquals(departmentTag, taskService.getDepartmentTasksTag(testDepartment.getId()));
+        assertNotEquals(previousAssigneeTag, taskService.getAssignedTasksTag(testUser.getId()));
+        assertNotEquals(newAssigneeTag, taskService.getAssignedTasksTag(otherUser.getId()));
+
+        String assigneeTagBeforeDelete = taskService.getAssignedTasksTag(otherUser.getId());
+        taskService.deleteTask(task.getId());
+        assertNotEquals(assigneeTagBeforeDelete, taskService.getAssignedTasksTag(otherUser.getId()));
+    }
+
+    @Test
+    void saveTask_staleCopy_optimisticLockingFailure() {
+        Task firstEditor = taskRepository.findById(testTask.getId()).orElseThrow();
+        Task secondEditor = taskRepository.findById(testTask.getId()).orElseThrow();
+
+        firstEditor.setTitle("First edit");
+        taskRepository.save(firstEditor);
+
+        secondEditor.setTitle("Second edit");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> taskRepository.save(secondEditor));
+        assertEquals("First edit", taskService.getTaskSummaryById(testTask.getId()).getTitle());
+    }
+
+    @Test
+    void updateTask_staleExpectedVersion_preconditionFailed() {
+        Task update = new Task();
+        update.setTitle("Edited");
+        taskService.updateTask(testTask.getId(), update, null, testTask.getVersion());
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> taskService.updateTask(testTask.getId(), update, null, testTask.getVersion()));
+        assertEquals(412, e.getStatusCode().value());
+        assertEquals(testTask.getVersion() + 1, taskService.getTaskSummaryById(testTask.getId()).getVersion());
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateTasks_matchingTasks_versionIncremented() {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setIds(List.of(testTask.getId()));
+        request.setStatus(Status.COMPLETED);
+        taskService.bulkUpdateTasks(request);
+
+        assertEquals(testTask.getVersion() + 1, taskService.getTaskSummaryById(testTask.getId()).getVersion());
+    }
+
+    @Test
+    @Transactional
+    void searchTasks_combinedFilters_pagesMatchingTasksByDueDate() {
+        User otherUser = new User();
+        otherUser.setName("Other User");
+        otherUser.setUsername("otheruser");
+        otherUser.setPassword("password");
+        otherUser = userRepository.save(otherUser);
+
+        Task dueSoon = saveTask("Due soon", LocalDateTime.now().plusDays(1));
+        dueSoon.setPriority(Priority.HIGH);
+        dueSoon.setAssignedUsers(new ArrayList<>(List.of(otherUser, otherUser)));
+        Task dueLater = saveTask("Due later", LocalDateTime.now().plusDays(3));
+        dueLater.setPriority(Priority.HIGH);
+        dueLater.setStatus(Status.IN_PROGRESS);
+        dueLater.setAssignedUsers(new ArrayList<>(List.of(otherUser)));
+        Task undated = saveTask("Undated", null);
+        undated.setPriority(Priority.HIGH);
+        undated.setAssignedUsers(new ArrayList<>(List.of(otherUser)));
+        Task completed = saveTask("Completed", LocalDateTime.now().plusDays(2));
+        completed.setPriority(Priority.HIGH);
+        completed.setStatus(Status.COMPLETED);
+        completed.setAssignedUsers(new ArrayList<>(List.of(otherUser)));
+        entityManager.flush();
+
+        TaskSearchDTO search = new TaskSearchDTO();
+        search.setDepartmentId(testDepartment.getId());
+        search.setAssigneeId(otherUser.getId());
+        search.setStatus(List.of(Status.NOT_STARTED, Status.IN_PROGRESS));
+        search.setPriority(List.of(Priority.HIGH));
+
+        CursorPageDTO<TaskSummaryDTO> first = taskService.searchTasks(search, null, 2, TaskSortKey.DUE_DATE);
+        assertEquals(List.of("Due soon", "Due later"), first.getItems().stream().map(TaskSummaryDTO::getTitle).toList());
+        assertEquals(List.of(otherUser.getId(), otherUser.getId()), first.getItems().get(0).getAssignedUserIds());
+
+        CursorPageDTO<TaskSummaryDTO> second = taskService.searchTasks(search, first.getNextCursor(), 2,
+                TaskSortKey.DUE_DATE);
+        assertEquals(List.of("Undated"), second.getItems().stream().map(TaskSummaryDTO::getTitle).toList());
+        assertNull(second.getNextCursor());
+
+        search.setDueTo(LocalDateTime.now().plusDays(2));
+        CursorPageDTO<TaskSummaryDTO> dueRange = taskService.searchTasks(search, null, 10, TaskSortKey.UPDATED_AT);
+        assertEquals(List.of("Due soon"), dueRange.getItems().stream().map(TaskSummaryDTO::getTitle).toList());
+    }
+
+    @Test
+    @Transactional
+    void summaryListings_manyTasksAndAssignees_constantStatementCount() {
+        User otherUser = new User();
+        otherUser.setName("Other User");
+        otherUser.setUsername("otheruser");
+        otherUser = userRepository.save(otherUser);
+        for (int i = 0; i < 20; i++) {
+            Task task = saveTask("Task " + i, null);
+            task.setAssignedUsers(new ArrayList<>(Arrays.asList(testUser, otherUser)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            List<TaskSummaryDTO> byDepartment = taskService.getTaskSummariesByDepartment(testDepartment.getId());
+            assertEquals(21, byDepartment.size());
+            // tasks with assignees, the department is only looked up when there are none
+            assertEquals(1, statistics.getPrepareStatementCount());
+
+            statistics.clear();
+            List<TaskSummaryDTO> projected = taskService.getTaskSummariesAssignedToUser(otherUser.getId());
+            assertEquals(20, projected.size());
+            assertTrue(projected.stream().allMatch(dto -> dto.getAssignedUserIds().size() == 2));
+            // one grouped projection, nothing is loaded as an entity
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+
+            statistics.clear();
+            CursorPageDTO<TaskSummaryDTO> page = taskService
+                    .getTasksByDepartmentPage(testDepartment.getId(), null, 15, TaskSortKey.UPDATED_AT);
+            assertEquals(15, page.getItems().size());
+            assertTrue(page.getItems().stream().filter(dto -> !dto.getId().equals(testTask.getId()))
+                    .allMatch(dto -> dto.getAssignedUserIds().size() == 2));
+            // page + one aggregate for all assignees of the page
+            assertEquals(2, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
     }
 
     @Test
@@ -150,10 +425,10 @@ public class TaskServiceTest {
 
     @Test
     @Transactional
-    void getAllTasks_returnsAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
+    void getAllTaskDTOs_returnsAllTasks() {
+        List<TaskDTO> tasks = taskService.getAllTaskDTOs();
         assertFalse(tasks.isEmpty());
-        assertTrue(tasks.contains(testTask));
+        assertTrue(tasks.stream().anyMatch(task -> task.getId().equals(testTask.getId())));
     }
 
     @Test
@@ -167,7 +442,7 @@ public class TaskServiceTest {
         taskDTO.setDueDate(LocalDateTime.now().plusDays(21));
         taskDTO.setAssignedUserIds(Arrays.asList(testUser.getId()));
 
-        Task updatedTask = taskService.updateTaskFromDTO(testTask.getId(), taskDTO);
+        Task updatedTask = taskService.updateTaskFromDTO(testTask.getId(), taskDTO, null);
 
         assertNotNull(updatedTask);
         assertEquals("Updated Task", updatedTask.getTitle());
@@ -196,4 +471,15 @@ public class TaskServiceTest {
         assertEquals(testTask.getDepartment().getId(), taskDTO.getDepartmentId());
         assertEquals(testTask.getCreatedBy().getId(), taskDTO.getCreatedById());
     }
+
+    private Task saveTask(String title, LocalDateTime dueDate) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDepartment(testDepartment);
+        task.setCreatedBy(testUser);
+        task.setPriority(Priority.LOW);
+        task.setStatus(Status.NOT_STARTED);
+        task.setDueDate(dueDate);
+        return taskRepository.save(task);
+    }
 }
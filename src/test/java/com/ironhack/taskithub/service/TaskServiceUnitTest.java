@@ -1,22 +1,33 @@
 package com.ironhack.taskithub.service;
 
+import com.ironhack.taskithub.dto.TaskBulkUpdateDTO;
 import com.ironhack.taskithub.dto.TaskDTO;
+import com.ironhack.taskithub.dto.TaskSearchDTO;
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.enums.ChangeEntity;
+import com.ironhack.taskithub.enums.ChangeType;
+import com.ironhack.taskithub.enums.Status;
+import com.ironhack.taskithub.enums.TaskSortKey;
 import com.ironhack.taskithub.model.Department;
 import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
 import com.ironhack.taskithub.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +52,21 @@ class TaskServiceUnitTest {
     @Mock
     private DepartmentRepository departmentRepository;
 
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private ListingVersions listingVersions;
+
+    @Mock
+    private TaskTombstones taskTombstones;
+
+    @Mock
+    private ChangeOutbox changeOutbox;
+
+    @Spy
+    private ReferenceResolver referenceResolver = new ReferenceResolver(new SimpleMeterRegistry());
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -65,7 +91,7 @@ class TaskServiceUnitTest {
 
         when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
         when(userRepository.findById(1L)).thenReturn(Optional.of(createdBy));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(assignedUser2));
+        when(userRepository.findAllById(any())).thenReturn(List.of(assignedUser1, assignedUser2));
         when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
 
         Task createdTask = taskService.createTaskFromDTO(taskDTO);
@@ -78,64 +104,103 @@ class TaskServiceUnitTest {
     }
 
     @Test
-    void getTasksByDepartment_validDepartmentId_returnsTaskList() {
-        Department department = new Department();
-        department.setId(1L);
-        Task task1 = new Task();
+    void createTaskFromDTO_unknownAssignee_throwsNotFoundNamingTheId() {
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setDepartmentId(1L);
+        taskDTO.setCreatedById(1L);
+        taskDTO.setAssignedUserIds(Arrays.asList(1L, 7L));
+
+        User user = new User();
+        user.setId(1L);
+
+        when(departmentRepository.findById(1L)).thenReturn(Optional.of(new Department()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.createTaskFromDTO(taskDTO));
+        assertEquals("User not found: 7", exception.getReason());
+        verify(userRepository, times(1)).findAllById(any());
+        verify(taskRepository, never()).save(any(Task.class));
+    }
+
+    @Test
+    void getTaskSummariesByDepartment_validDepartmentId_returnsTaskList() {
+        TaskSummaryDTO task1 = new TaskSummaryDTO();
         task1.setId(1L);
-        Task task2 = new Task();
+        TaskSummaryDTO task2 = new TaskSummaryDTO();
         task2.setId(2L);
 
-        when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
-        when(taskRepository.findByDepartmentId(1L)).thenReturn(Arrays.asList(task1, task2));
+        when(taskRepository.findSummariesByDepartmentId(1L)).thenReturn(Arrays.asList(task1, task2));
 
-        List<Task> tasks = taskService.getTasksByDepartment(1L);
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesByDepartment(1L);
 
         assertNotNull(tasks);
         assertEquals(2, tasks.size());
+        // tasks came back, so the department exists
+        verify(departmentRepository, never()).existsById(anyLong());
     }
 
     @Test
-    void getTasksByDepartment_invalidDepartmentId_throwsResponseStatusException() {
-        when(departmentRepository.findById(anyLong())).thenReturn(Optional.empty());
+    void getTaskSummariesByDepartment_invalidDepartmentId_throwsResponseStatusException() {
+        when(taskRepository.findSummariesByDepartmentId(anyLong())).thenReturn(List.of());
+        when(departmentRepository.existsById(anyLong())).thenReturn(false);
 
-        assertThrows(ResponseStatusException.class, () -> taskService.getTasksByDepartment(1L));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.getTaskSummariesByDepartment(1L));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     }
 
     @Test
-    void getTasksCreatedByUser_validUserId_returnsTaskList() {
-        User user = new User();
-        user.setId(1L);
-        Task task1 = new Task();
+    void getTaskSummariesCreatedByUser_validUserId_returnsTaskList() {
+        TaskSummaryDTO task1 = new TaskSummaryDTO();
         task1.setId(1L);
-        Task task2 = new Task();
+        TaskSummaryDTO task2 = new TaskSummaryDTO();
         task2.setId(2L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(taskRepository.findByCreatedBy_Id(1L)).thenReturn(Arrays.asList(task1, task2));
+        when(taskRepository.findSummariesByCreatedById(1L)).thenReturn(Arrays.asList(task1, task2));
 
-        List<Task> tasks = taskService.getTasksCreatedByUser(1L);
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesCreatedByUser(1L);
 
         assertNotNull(tasks);
         assertEquals(2, tasks.size());
+        verify(userRepository, never()).existsById(anyLong());
     }
 
     @Test
-    void getTasksAssignedToUser_validUserId_returnsTaskList() {
-        User user = new User();
-        user.setId(1L);
-        Task task1 = new Task();
+    void getTaskSummariesCreatedByUser_invalidUserId_throwsResponseStatusException() {
+        when(taskRepository.findSummariesByCreatedById(anyLong())).thenReturn(List.of());
+        when(userRepository.existsById(anyLong())).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.getTaskSummariesCreatedByUser(1L));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+
+    @Test
+    void getTaskSummariesAssignedToUser_validUserId_returnsTaskList() {
+        TaskSummaryDTO task1 = new TaskSummaryDTO();
         task1.setId(1L);
-        Task task2 = new Task();
+        TaskSummaryDTO task2 = new TaskSummaryDTO();
         task2.setId(2L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(taskRepository.findByAssignedUsers_Id(1L)).thenReturn(Arrays.asList(task1, task2));
+        when(taskRepository.findSummariesByAssigneeId(1L)).thenReturn(Arrays.asList(task1, task2));
 
-        List<Task> tasks = taskService.getTasksAssignedToUser(1L);
+        List<TaskSummaryDTO> tasks = taskService.getTaskSummariesAssignedToUser(1L);
 
         assertNotNull(tasks);
         assertEquals(2, tasks.size());
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void getTaskSummariesAssignedToUser_invalidUserId_throwsResponseStatusException() {
+        when(taskRepository.findSummariesByAssigneeId(anyLong())).thenReturn(List.of());
+        when(userRepository.existsById(anyLong())).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> taskService.getTaskSummariesAssignedToUser(1L));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     }
 
     @Test
@@ -175,11 +240,10 @@ class TaskServiceUnitTest {
         user2.setId(2L);
 
         when(taskRepository.findById(1L)).thenReturn(Optional.of(existingTask));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(user2));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user1, user2));
         when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        Task updatedTask = taskService.updateTaskFromDTO(1L, updateDTO);
+        Task updatedTask = taskService.updateTaskFromDTO(1L, updateDTO, null);
 
         assertNotNull(updatedTask);
         assertEquals("New Title", updatedTask.getTitle());
@@ -188,10 +252,94 @@ class TaskServiceUnitTest {
 
     @Test
     void deleteTask_existingId_deletesCalled() {
+        TaskSummaryDTO summary = new TaskSummaryDTO();
+        summary.setId(1L);
+        summary.setDepartmentId(2L);
+        summary.setAssignedUserIds(List.of(3L));
+        when(taskRepository.findSummaryById(1L)).thenReturn(Optional.of(summary));
         doNothing().when(taskRepository).deleteById(1L);
 
         taskService.deleteTask(1L);
 
         verify(taskRepository).deleteById(1L);
+        verify(changeOutbox).record(ChangeEntity.TASK, 1L, ChangeType.DELETED, List.of(2L), List.of(3L));
+    }
+
+    @Test
+    void bulkUpdateTasks_withoutFilter_throwsBadRequest() {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setStatus(Status.COMPLETED);
+
+        assertThrows(ResponseStatusException.class, () -> taskService.bulkUpdateTasks(request));
+        verify(taskRepository, never()).bulkUpdate(any(), any(), any());
+    }
+
+    @Test
+    void bulkUpdateTasks_withoutChange_throwsBadRequest() {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDepartmentId(1L);
+
+        assertThrows(ResponseStatusException.class, () -> taskService.bulkUpdateTasks(request));
+        verify(taskRepository, never()).bulkUpdate(any(), any(), any());
+    }
+
+    @Test
+    void bulkUpdateTasks_matchingTasks_lockedIdsUpdatedAndRecorded() {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDepartmentId(1L);
+        request.setStatus(Status.COMPLETED);
+        List<Long> ids = List.of(4L, 9L);
+        when(taskRepository.lockIdsToBulkUpdate(request)).thenReturn(ids);
+        when(taskRepository.bulkUpdate(eq(ids), eq(request), any())).thenReturn(2);
+        when(taskRepository.findDepartmentIdsByIds(ids)).thenReturn(List.of(1L));
+        when(taskRepository.findAssigneeIdsByIds(ids)).thenReturn(List.of(5L));
+
+        assertEquals(2, taskService.bulkUpdateTasks(request));
+
+        // the tasks are never found again by the updatedAt they were stamped with
+        verify(changeOutbox).recordAll(ChangeEntity.TASK, ids, ChangeType.UPDATED, Map.of());
+        verify(listingVersions).departmentTasksChanged(List.of(1L));
+        verify(listingVersions).assignedTasksChanged(List.of(5L));
+    }
+
+    @Test
+    void bulkUpdateTasks_nothingToChange_noUpdate() {
+        TaskBulkUpdateDTO request = new TaskBulkUpdateDTO();
+        request.setDepartmentId(1L);
+        request.setStatus(Status.COMPLETED);
+        when(taskRepository.lockIdsToBulkUpdate(request)).thenReturn(List.of());
+
+        assertEquals(0, taskService.bulkUpdateTasks(request));
+        verify(taskRepository, never()).bulkUpdate(any(), any(), any());
+        verify(changeOutbox, never()).recordAll(any(), any(), any(), any());
+    }
+
+    @Test
+    void searchTasks_withoutFilter_throwsBadRequest() {
+        TaskSearchDTO search = new TaskSearchDTO();
+        search.setStatus(List.of());
+
+        assertThrows(ResponseStatusException.class, () -> taskService.searchTasks(search, null, 10, TaskSortKey.UPDATED_AT));
+        verify(taskRepository, never()).findSummaries(any(), any(), any());
+    }
+
+    @Test
+    void searchTaskText_indexHits_summariesInRankOrder() {
+        TaskSummaryDTO first = new TaskSummaryDTO();
+        first.setId(7L);
+        TaskSummaryDTO second = new TaskSummaryDTO();
+        second.setId(3L);
+
+        when(taskSearchIndex.search("report", 1L, null, 10)).thenReturn(List.of(7L, 5L, 3L));
+        when(taskRepository.findSummariesByIds(List.of(7L, 5L, 3L))).thenReturn(List.of(second, first));
+
+        // task 5 was deleted after the index lookup
+        assertEquals(List.of(first, second), taskService.searchTaskText("report", 1L, null, 10));
+    }
+
+    @Test
+    void searchTaskText_blankText_throwsBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> taskService.searchTaskText(" ", null, null, 10));
+        verifyNoInteractions(taskSearchIndex);
     }
 }
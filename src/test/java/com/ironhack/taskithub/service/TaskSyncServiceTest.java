@@ -0,0 +1,165 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.dto.TaskSummaryDTO;
+import com.ironhack.taskithub.dto.TaskSyncDTO;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskSyncServiceTest
+ */
+@SpringBootTest
+public class TaskSyncServiceTest {
+
+    @Autowired
+    private TaskSyncService taskSyncService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department testDepartment;
+    private Department otherDepartment;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testDepartment = new Department();
+        testDepartment.setName("Sync Department");
+        testDepartment = departmentRepository.save(testDepartment);
+
+        otherDepartment = new Department();
+        otherDepartment.setName("Other Sync Department");
+        otherDepartment = departmentRepository.save(otherDepartment);
+
+        testUser = new User();
+        testUser.setName("Sync User");
+        testUser.setUsername("syncuser");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+        jdbcTemplate.update("delete from task_tombstone");
+    }
+
+    @Test
+    void sync_withoutWatermark_allTasksInPages() {
+        Task first = createTask("First");
+        Task second = createTask("Second");
+        Task third = createTask("Third");
+
+        TaskSyncDTO page = taskSyncService.sync(testDepartment.getId(), null, null, 2);
+        assertTrue(page.isHasMore());
+        List<Long> received = new ArrayList<>(ids(page.getChanged()));
+        page = taskSyncService.sync(testDepartment.getId(), null, page.getWatermark(), 2);
+        assertFalse(page.isHasMore());
+        received.addAll(ids(page.getChanged()));
+
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()), received);
+        assertEquals(List.of(testUser.getId()), page.getChanged().get(0).getAssignedUserIds());
+        assertTrue(page.getRemoved().isEmpty());
+    }
+
+    @Test
+    void sync_tasksMovedAndDeleted_reportedAsRemoved() {
+        Task kept = createTask("Kept");
+        Task moved = createTask("Moved");
+        Task deleted = createTask("Deleted");
+        String departmentWatermark = taskSyncService.sync(testDepartment.getId(), null, null, 10).getWatermark();
+        String assigneeWatermark = taskSyncService.sync(null, testUser.getId(), null, 10).getWatermark();
+
+        Task update = new Task();
+        update.setTitle("Moved");
+        update.setDepartment(otherDepartment);
+        taskService.updateTask(moved.getId(), update, List.of());
+        taskService.deleteTask(deleted.getId());
+
+        TaskSyncDTO department = taskSyncService.sync(testDepartment.getId(), null, departmentWatermark, 10);
+        assertEquals(List.of(moved.getId(), deleted.getId()), department.getRemoved());
+        assertEquals(List.of(kept.getId()), ids(department.getChanged()));
+
+        TaskSyncDTO assignee = taskSyncService.sync(null, testUser.getId(), assigneeWatermark, 10);
+        assertEquals(List.of(moved.getId(), deleted.getId()), assignee.getRemoved());
+        assertEquals(List.of(kept.getId()), ids(assignee.getChanged()));
+    }
+
+    @Test
+    void sync_taskMovedBack_onlyReportedAsChanged() {
+        Task task = createTask("Round trip");
+        String watermark = taskSyncService.sync(testDepartment.getId(), null, null, 10).getWatermark();
+
+        Task away = new Task();
+        away.setTitle("Round trip");
+        away.setDepartment(otherDepartment);
+        taskService.updateTask(task.getId(), away, null);
+        Task back = new Task();
+        back.setTitle("Round trip");
+        back.setDepartment(testDepartment);
+        taskService.updateTask(task.getId(), back, null);
+
+        TaskSyncDTO sync = taskSyncService.sync(testDepartment.getId(), null, watermark, 10);
+        assertEquals(List.of(task.getId()), ids(sync.getChanged()));
+        assertTrue(sync.getRemoved().isEmpty());
+    }
+
+    @Test
+    void sync_invalidRequests_rejected() {
+        String departmentWatermark = taskSyncService.sync(testDepartment.getId(), null, null, 10).getWatermark();
+        String expired = new SyncWatermark(ListingVersions.DEPARTMENT_TASKS, testDepartment.getId(),
+                LocalDateTime.now().minusDays(60), 0L, LocalDateTime.now().minusDays(60), 0L, null).encode();
+
+        assertEquals(400, status(() -> taskSyncService.sync(null, null, null, 10)));
+        assertEquals(400, status(() -> taskSyncService.sync(testDepartment.getId(), testUser.getId(), null, 10)));
+        assertEquals(400, status(() -> taskSyncService.sync(null, testUser.getId(), departmentWatermark, 10)));
+        assertEquals(400, status(() -> taskSyncService.sync(testDepartment.getId(), null, "not-a-watermark", 10)));
+        assertEquals(404, status(() -> taskSyncService.sync(999999L, null, null, 10)));
+        assertEquals(410, status(() -> taskSyncService.sync(testDepartment.getId(), null, expired, 10)));
+    }
+
+    private Task createTask(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        return taskService.createTask(task, testDepartment.getId(), testUser.getId(), List.of(testUser.getId()));
+    }
+
+    private int status(Runnable call) {
+        return assertThrows(ResponseStatusException.class, call::run).getStatusCode().value();
+    }
+
+    private List<Long> ids(List<TaskSummaryDTO> tasks) {
+        return tasks.stream().map(TaskSummaryDTO::getId).toList();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ironhack.taskithub.service;
+
+import com.ironhack.taskithub.dto.UserDeletionJobDTO;
+import com.ironhack.taskithub.enums.UserDeletionStatus;
+import com.ironhack.taskithub.model.Department;
+import com.ironhack.taskithub.model.Task;
+import com.ironhack.taskithub.model.User;
+import com.ironhack.taskithub.repository.DepartmentRepository;
+import com.ironhack.taskithub.repository.TaskRepository;
+import com.ironhack.taskithub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserDeletionServiceTest
+ */
+@SpringBootTest(properties = { "taskithub.users.delete.background-threshold=3", "taskithub.users.delete.batch-size=2" })
+public class UserDeletionServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department testDepartment;
+    private User leaving;
+    private User successor;
+    private User colleague;
+
+    @BeforeEach
+    void setUp() {
+        testDepartment = new Department();
+        testDepartment.setName("Deletion Department");
+        testDepartment = departmentRepository.save(testDepartment);
+
+        leaving = createUser("leaving");
+        successor = createUser("successor");
+        colleague = createUser("colleague");
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+        jdbcTemplate.update("delete from task_tombstone");
+    }
+
+    @Test
+    void deleteUser_withSuccessor_tasksHandedOverRightAway() {
+        Task created = createTask("Created", leaving, List.of(leaving.getId(), colleague.getId()));
+        Task shared = createTask("Shared", colleague, List.of(leaving.getId(), successor.getId()));
+
+        assertTrue(userService.deleteUser(leaving.getId(), successor.getId()).isEmpty());
+
+        assertFalse(userRepository.existsById(leaving.getId()));
+        assertEquals(List.of(successor.getId(), colleague.getId()), assigneeIds(created.getId()));
+        assertEquals(List.of(successor.getId()), assigneeIds(shared.getId()));
+        assertEquals(successor.getId(), creatorId(created.getId()));
+        assertEquals(created.getVersion() + 2, taskRepository.findById(created.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void deleteUser_manyTasks_deletedInBackgroundWithProgress() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            createTask("Task " + i, leaving, List.of(leaving.getId(), colleague.getId()));
+        }
+
+        Optional<UserDeletionJobDTO> started = userService.deleteUser(leaving.getId(), null);
+        assertTrue(started.isPresent());
+        assertEquals(8, started.get().getTotal());
+
+        UserDeletionJobDTO job = userService.getDeletionJob(started.get().getId());
+        for (int i = 0; i < 100 && job.getStatus() == UserDeletionStatus.RUNNING; i++) {
+            Thread.sleep(50);
+            job = userService.getDeletionJob(job.getId());
+        }
+        assertEquals(UserDeletionStatus.COMPLETED, job.getStatus());
+        assertEquals(8, job.getProcessed());
+        assertNotNull(job.getFinishedAt());
+
+        assertFalse(userRepository.existsById(leaving.getId()));
+        for (Task task : taskRepository.findAll()) {
+            assertEquals(List.of(colleague.getId()), assigneeIds(task.getId()));
+            assertNull(creatorId(task.getId()));
+        }
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "select count(*) from task_tombstone where scope = ? and scope_id = ?", Integer.class,
+                ListingVersions.ASSIGNED_TASKS, leaving.getId()));
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setName(username);
+        user.setUsername(username);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    private Task createTask(String title, User createdBy, List<Long> assigneeIds) {
+        Task task = new Task();
+        task.setTitle(title);
+        return taskService.createTask(task, testDepartment.getId(), createdBy.getId(), assigneeIds);
+    }
+
+    private List<Long> assigneeIds(Long taskId) {
+        return jdbcTemplate.queryForList("select user_id from task_assigned_users where task_id = ? order by user_id",
+                Long.class, taskId);
+    }
+
+    private Long creatorId(Long taskId) {
+        return jdbcTemplate.queryForObject("select created_by_id from task where id = ?", Long.class, taskId);
+    }
+}
@@ -9,6 +9,7 @@ import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
 import com.ironhack.taskithub.repository.UserRepository;
 
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 
 import org.junit.jupiter.api.AfterEach;
@@ -16,10 +17,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,6 +47,18 @@ public class UserServiceTest {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ChangeOutboxRelay changeOutboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private Department testDepartment;
     private Task testTask;
@@ -58,7 +75,8 @@ public class UserServiceTest {
         testUser.setPassword("password");
         testUser.setRole(Role.USER);
         testUser.setDepartment(testDepartment);
-        testUser = userRepository.save(testUser);
+        // through the service, which evicts whatever an earlier test left in the login cache
+        testUser = userService.createUser(testUser, null, null);
 
         testTask = new Task();
         testTask.setTitle("Test Task");
@@ -162,7 +180,7 @@ public class UserServiceTest {
     void deleteUser_existingId_userDeleted() {
         List<Task> userTasks = taskRepository.findByAssignedUsers_Id(testUser.getId());
         
-        userService.deleteUser(testUser.getId());
+        userService.deleteUser(testUser.getId(), null);
         
         assertTrue(userRepository.findById(testUser.getId()).isEmpty());
         assertTrue(taskRepository.findByAssignedUsers_Id(testUser.getId()).isEmpty());
@@ -188,4 +206,69 @@ public class UserServiceTest {
     void existsByUsername_nonExistingUsername_returnsFalse() {
         assertFalse(userService.existsByUsername("nonexistentuser"));
     }
+
+    @Test
+    void updateUser_cachedUser_evictedFromSecondLevelCache() {
+        userRepository.findById(testUser.getId());
+        assertTrue(entityManagerFactory.getCache().contains(User.class, testUser.getId()));
+
+        UserDTO update = new UserDTO();
+        update.setName("Renamed User");
+        userService.updateUser(testUser.getId(), update);
+
+        assertFalse(entityManagerFactory.getCache().contains(User.class, testUser.getId()));
+        assertEquals("Renamed User", userRepository.findById(testUser.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void loadUserByUsername_afterPasswordRoleAndUsernameChange_currentDetailsReturned() {
+        assertEquals("password", userService.loadUserByUsername("testuser").getPassword());
+
+        UserDTO update = new UserDTO();
+        update.setPassword("changed");
+        update.setRole(Role.ADMIN.name());
+        userService.updateUser(testUser.getId(), update);
+
+        UserDetails changed = userService.loadUserByUsername("testuser");
+        assertTrue(passwordEncoder.matches("changed", changed.getPassword()));
+        assertEquals(List.of("ADMIN"), changed.getAuthorities().stream().map(a -> a.getAuthority()).toList());
+
+        UserDTO rename = new UserDTO();
+        rename.setUsername("renameduser");
+        userService.updateUser(testUser.getId(), rename);
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("testuser"));
+        assertEquals("renameduser", userService.loadUserByUsername("renameduser").getUsername());
+    }
+
+    @Test
+    void loadUserByUsername_passwordChangedOnOtherNode_evictedWhenTheChangeArrives() {
+        assertEquals("password", userService.loadUserByUsername("testuser").getPassword());
+
+        // another node's change: the row and its outbox entry, none of this node's evictions
+        jdbcTemplate.update("update user set password = ? where id = ?", "changed", testUser.getId());
+        jdbcTemplate.update("insert into change_outbox (entity, entity_id, change_type, created_at) values (?, ?, ?, ?)",
+                "USER", testUser.getId(), "UPDATED", Timestamp.valueOf(LocalDateTime.now()));
+        changeOutboxRelay.drain();
+
+        assertEquals("changed", userService.loadUserByUsername("testuser").getPassword());
+    }
+
+    @Test
+    void secondLevelCache_userAndDepartmentChangedOnOtherNode_evictedWhenTheChangesArrive() {
+        userRepository.findById(testUser.getId());
+        departmentRepository.findById(testDepartment.getId());
+        assertTrue(entityManagerFactory.getCache().contains(User.class, testUser.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Department.class, testDepartment.getId()));
+
+        // another node's changes, only their outbox entries reach this node
+        String insert = "insert into change_outbox (entity, entity_id, change_type, created_at) values (?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(insert, "USER", testUser.getId(), "UPDATED", now);
+        jdbcTemplate.update(insert, "DEPARTMENT", testDepartment.getId(), "UPDATED", now);
+        changeOutboxRelay.drain();
+
+        assertFalse(entityManagerFactory.getCache().contains(User.class, testUser.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Department.class, testDepartment.getId()));
+    }
 }
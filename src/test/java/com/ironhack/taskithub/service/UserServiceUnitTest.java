@@ -2,22 +2,26 @@ package com.ironhack.taskithub.service;
 
 import com.ironhack.taskithub.dto.UserDTO;
 import com.ironhack.taskithub.enums.Role;
-import com.ironhack.taskithub.model.Task;
 import com.ironhack.taskithub.model.User;
 import com.ironhack.taskithub.repository.DepartmentRepository;
 import com.ironhack.taskithub.repository.TaskRepository;
 import com.ironhack.taskithub.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -47,6 +51,22 @@ class UserServiceUnitTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ChangeOutbox changeOutbox;
+
+    @Mock
+    private UserDeletionService userDeletionService;
+
+    @Spy
+    private ReferenceResolver referenceResolver = new ReferenceResolver(new SimpleMeterRegistry());
+
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Spy
+    private UserDetailsCache userDetailsCache = new UserDetailsCache(new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(10));
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -59,9 +79,12 @@ class UserServiceUnitTest {
         user.setPassword("password");
         user.setRole(Role.USER);
 
-        when(userRepository.findByUsername("testuser")).thenReturn(List.of(user));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
 
         UserDetails userDetails = userService.loadUserByUsername("testuser");
+        // the second login is served from the cache with its own copy of the details
+        assertNotSame(userDetails, userService.loadUserByUsername("testuser"));
+        verify(userRepository, times(1)).findByUsername("testuser");
 
         assertNotNull(userDetails);
         assertEquals("testuser", userDetails.getUsername());
@@ -70,9 +93,30 @@ class UserServiceUnitTest {
                 .anyMatch(a -> a.getAuthority().equals("USER")));
     }
 
+    @Test
+    void loadUserByUsername_otherCaseThenPasswordChanged_oldPasswordRejected() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setPassword("oldHash");
+        user.setRole(Role.USER);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(passwordEncoder.encode("newPassword")).thenReturn("newHash");
+
+        assertEquals("oldHash", userService.loadUserByUsername("TestUser").getPassword());
+        UserDTO update = new UserDTO();
+        update.setPassword("newPassword");
+        userService.updateUser(1L, update);
+
+        assertEquals("newHash", userService.loadUserByUsername("TestUser").getPassword());
+        assertEquals("newHash", userService.loadUserByUsername("testuser").getPassword());
+    }
+
     @Test
     void loadUserByUsername_nonExistingUsername_throwsUsernameNotFoundException() {
-        when(userRepository.findByUsername("nonexistent")).thenReturn(List.of());
+        when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("nonexistent"));
     }
@@ -104,18 +148,21 @@ class UserServiceUnitTest {
         User user = new User();
         user.setUsername("existinguser");
 
-        when(userRepository.existsByUsername("existinguser")).thenReturn(true);
+        when(userRepository.save(user)).thenThrow(new DataIntegrityViolationException("Duplicate entry",
+                new SQLException("Duplicate entry 'existinguser' for key 'user.uk_user_username'")));
 
-        assertThrows(ResponseStatusException.class, () -> userService.createUser(user, null, null));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userService.createUser(user, null, null));
+        assertEquals(409, exception.getStatusCode().value());
     }
 
     @Test
     void getUserByUsername_existingUsername_returnsUserDTO() {
-        User user = new User();
+        UserDTO user = new UserDTO();
         user.setId(1L);
         user.setUsername("testuser");
 
-        when(userRepository.findByUsername("testuser")).thenReturn(List.of(user));
+        when(userRepository.findUserDTOsByUsername("testuser")).thenReturn(List.of(user));
 
         UserDTO resultDTO = userService.getUserByUsername("testuser");
 
@@ -126,21 +173,21 @@ class UserServiceUnitTest {
 
     @Test
     void getUserByUsername_nonExistingUsername_throwsResponseStatusException() {
-        when(userRepository.findByUsername("nonexistent")).thenReturn(List.of());
+        when(userRepository.findUserDTOsByUsername("nonexistent")).thenReturn(List.of());
 
         assertThrows(ResponseStatusException.class, () -> userService.getUserByUsername("nonexistent"));
     }
 
     @Test
     void getAllUsers_usersExist_returnsListOfUserDTOs() {
-        User user1 = new User();
+        UserDTO user1 = new UserDTO();
         user1.setId(1L);
         user1.setUsername("user1");
-        User user2 = new User();
+        UserDTO user2 = new UserDTO();
         user2.setId(2L);
         user2.setUsername("user2");
 
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userRepository.findAllUserDTOs()).thenReturn(Arrays.asList(user1, user2));
 
         List<UserDTO> resultDTOs = userService.getAllUsers();
 
@@ -170,35 +217,28 @@ class UserServiceUnitTest {
         assertEquals("newusername", updatedUser.getUsername());
         assertEquals("encodedNewPassword", updatedUser.getPassword());
         verify(userRepository).save(existingUser);
+        verify(referenceDataCache).evictUser(1L);
     }
 
     @Test
-    void deleteUser_existingId_deletesUserAndUpdatesTasks() {
-        User user = new User();
-        user.setId(1L);
-
-        Task assignedTask = new Task();
-        assignedTask.setId(1L);
-        assignedTask.setAssignedUsers(List.of(user));
+    void deleteUser_existingIdAndSuccessor_handedToDeletion() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(userDeletionService.delete(1L, 2L)).thenReturn(Optional.empty());
 
-        Task createdTask = new Task();
-        createdTask.setId(2L);
-        createdTask.setCreatedBy(user);
+        assertTrue(userService.deleteUser(1L, 2L).isEmpty());
+        verify(userDeletionService).delete(1L, 2L);
+    }
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(taskRepository.findByAssignedUsers_Id(1L)).thenReturn(List.of(assignedTask));
-        when(taskRepository.findByCreatedBy_Id(1L)).thenReturn(List.of(createdTask));
-
-        userService.deleteUser(1L);
-
-        verify(taskRepository).saveAll(argThat((Iterable<Task> tasks) -> {
-            Task task = tasks.iterator().next();
-            return task.getId().equals(1L) && task.getAssignedUsers() == null;
-        }));
-        verify(taskRepository).saveAll(argThat((Iterable<Task> tasks) -> {
-            Task task = tasks.iterator().next();
-            return task.getId().equals(2L) && task.getCreatedBy() == null;
-        }));
-        verify(userRepository).delete(user);
+    @Test
+    void deleteUser_invalidSuccessor_throwsBeforeDeleting() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        assertEquals(400, assertThrows(ResponseStatusException.class, () -> userService.deleteUser(1L, 1L))
+                .getStatusCode().value());
+        assertEquals(404, assertThrows(ResponseStatusException.class, () -> userService.deleteUser(1L, 2L))
+                .getStatusCode().value());
+        verifyNoInteractions(userDeletionService);
     }
 }